@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@code Benchmarks} prepares the JVM a benchmark forks before the {@code ProductManager} is created
+ * @version 4.0
+ * @author amz
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * points the reports, data and temp folders to a new temporary folder
+     * @return the temporary folder
+     */
+    static Path workFolders() throws IOException {
+        Path work = Files.createTempDirectory("pm-bench");
+        for (String folder : new String[]{"reports", "data", "temp"}) {
+            Files.createDirectories(work.resolve(folder));
+            System.setProperty(folder + ".folder", work.resolve(folder).toString());
+        }
+        return work;
+    }
+
+    /**
+     * drops what the benchmarked code prints, JMH reports through its own channel
+     */
+    static void silenceConsole() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.ConcurrencyMode;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ConcurrencyBenchmark} runs the {@code Shop} client workload (discounts, a review and a product report)
+ * in every {@link ConcurrencyMode ConcurrencyMode}, the score is clients per second
+ * <br>
+ * there is one benchmark per number of client threads, 1, 4, 16 and 64, e.g. {@code ConcurrencyBenchmark.clients16}
+ * compares the two modes on 16 threads. do not pass {@code -t}, it would override the counts of the benchmarks
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    private static final int PRODUCTS = 200;
+    private static final int FIRST_ID = 10_000;
+
+    @Param({"GLOBAL", "STRIPED"})
+    public ConcurrencyMode mode;
+
+    private ProductManager productManager;
+    private List<String> languageTags;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        productManager = ProductManager.getInstance();
+        productManager.setConcurrencyMode(mode);
+        languageTags = new ArrayList<>(ProductManager.getSupportedLocales());
+        for (int id = FIRST_ID; id < FIRST_ID + PRODUCTS; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(2.99), Rating.NOT_RATED);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void clients1() {
+        client();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void clients4() {
+        client();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void clients16() {
+        client();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void clients64() {
+        client();
+    }
+
+    private void client() {
+        int productId = FIRST_ID + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        String languageTag = languageTags.get(ThreadLocalRandom.current().nextInt(languageTags.size()));
+        productManager.getDiscounts(languageTag);
+        productManager.reviewProduct(productId, Rating.FOUR_STAR, "Yet another review");
+        productManager.printProductReport(productId, languageTag, Thread.currentThread().getName());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.ProductManagerException;
+import labs.pm.data.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code FindProductBenchmark} measures {@link ProductManager#findProduct(int) findProduct} on catalogs of
+ * growing size
+ * <br>
+ * with the id index the cost per lookup should stay flat while the catalog grows
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindProductBenchmark {
+
+    private static final int FIRST_ID = 1_000_000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private ProductManager productManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        productManager = ProductManager.getInstance();
+        for (int created = 0; created < size; created++) {
+            productManager.createProduct(FIRST_ID + created, "Product " + created,
+                    BigDecimal.valueOf(1.99), Rating.values()[created % 6]);
+        }
+    }
+
+    @Benchmark
+    public Product findProduct() throws ProductManagerException {
+        return productManager.findProduct(FIRST_ID + ThreadLocalRandom.current().nextInt(size));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+import labs.pm.data.ResourceFormatter;
+import labs.pm.data.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code FormatterBenchmark} compares report line formatting with {@link MessageFormat#format MessageFormat.format},
+ * as {@code ProductManager} used to do it, with the precompiled templates of {@link ResourceFormatter ResourceFormatter}
+ * for the five supported locales
+ * <br>
+ * both sides are checked to produce the same lines before they are timed. the MessageFormat side shares a
+ * currency format, run it on one thread
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+
+    private static final int PRODUCTS = 1 << 14;
+
+    @Param({"en-GB", "en-US", "es-US", "fr-FR", "zh-CN"})
+    public String languageTag;
+
+    private final Product[] products = new Product[PRODUCTS];
+    private final Review[] reviews = new Review[PRODUCTS];
+    private ResourceBundle resources;
+    private DateTimeFormatter dateformat;
+    private NumberFormat moneyformat;
+    private ResourceFormatter formatter;
+    private final StringBuilder txt = new StringBuilder();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        ProductManager productManager = ProductManager.getInstance();
+        for (int i = 0; i < PRODUCTS; i++) {
+            int id = 700_000 + i;
+            products[i] = productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(id % 10_000, 2),
+                    Rating.values()[i % 6]);
+            reviews[i] = new Review(Rating.values()[i % 6], "Review number " + i);
+        }
+
+        Locale locale = Locale.forLanguageTag(languageTag);
+        resources = ResourceBundle.getBundle("labs.pm.data.resources", locale);
+        dateformat = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT);
+        moneyformat = NumberFormat.getCurrencyInstance(locale);
+        formatter = new ResourceFormatter(locale);
+
+        for (int i = 0; i < 1000; i++) {
+            String expected = legacyProduct(products[i]) + legacyReview(reviews[i]);
+            String actual = formatter.formatProduct(products[i]) + formatter.formatReview(reviews[i]);
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException(locale + " expected " + expected + " but was " + actual);
+            }
+        }
+    }
+
+    @Benchmark
+    public int messageFormat() {
+        int i = next();
+        return legacyProduct(products[i]).length() + legacyReview(reviews[i]).length();
+    }
+
+    @Benchmark
+    public int resourceFormatter() {
+        int i = next();
+        txt.setLength(0);
+        formatter.appendProduct(txt, products[i]);
+        formatter.appendReview(txt, reviews[i]);
+        return txt.length();
+    }
+
+    private String legacyProduct(Product product) {
+        return MessageFormat.format(resources.getString("product"),
+                product.getName(),
+                moneyformat.format(product.getPrice()),
+                product.getRating().getStars(),
+                dateformat.format(product.getBestBefore()));
+    }
+
+    private String legacyReview(Review review) {
+        return MessageFormat.format(resources.getString("review"),
+                review.getRating().getStars(),
+                review.getComments());
+    }
+
+    private int next() {
+        return next = (next + 1) & (PRODUCTS - 1);
+    }
+}
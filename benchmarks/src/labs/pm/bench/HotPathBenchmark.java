@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.ProductManagerException;
+import labs.pm.data.ProductQuery;
+import labs.pm.data.Rating;
+import labs.pm.data.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code HotPathBenchmark} is the regression suite of the {@link ProductManager ProductManager} hot paths
+ * <br>
+ * for each catalog size it times {@code findProduct}, {@code reviewProduct}, {@code printProductReport},
+ * {@code printProducts}, {@code getDiscounts}, {@code parseProduct}, {@code parseReview}, {@code dumpData} and
+ * {@code restoreData}, the data folder load behind {@code loadAllProducts} is timed by
+ * {@link LoaderBenchmark LoaderBenchmark}. run the suite once per thread count and compare it with the results
+ * of a release with {@link RegressionCheck RegressionCheck}, e.g.
+ * <pre>
+ * gradle :benchmarks:jmh --args='"HotPath|Loader" -t 4 -rf csv -rff today.csv'
+ * java -cp benchmarks/build/libs/benchmarks.jar labs.pm.bench.RegressionCheck release.csv today.csv
+ * </pre>
+ * each size runs in its own JVM, the catalog is built once and grows with the reviews of the benchmark.
+ * it is dumped once built, so every {@code restoreData} restores the whole catalog.
+ * the review log is turned off so reviews measure the catalog rather than the disk
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class HotPathBenchmark {
+
+    private static final String[] LANGUAGE_TAGS = {"en-GB", "en-US", "fr-FR", "es-US", "zh-CN"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param("5")
+    public int reviewsPerProduct;
+
+    private ProductManager productManager;
+    private final Comparator<Product> byRatingThenName = Comparator.comparing(Product::getRating,
+            Comparator.reverseOrder()).thenComparing(Product::getName);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        System.setProperty("review.log.enabled", "false");
+        // printProducts writes to System.out, keep the listings out of the results
+        Benchmarks.silenceConsole();
+
+        productManager = ProductManager.getInstance();
+        LocalDate today = LocalDate.now();
+        for (int id = 1; id <= size; id++) {
+            if (id % 2 == 0) {
+                productManager.createProduct(id, "Food " + id, BigDecimal.valueOf(id % 1000, 2),
+                        Rating.NOT_RATED, today.plusDays(id % 7));
+            } else {
+                productManager.createProduct(id, "Drink " + id, BigDecimal.valueOf(id % 1000, 2),
+                        Rating.NOT_RATED);
+            }
+            for (int review = 0; review < reviewsPerProduct; review++) {
+                productManager.reviewProduct(id, Rating.values()[review % 6], "Review " + review);
+            }
+        }
+        // restoreData reads the latest snapshot, without one it would reload the empty data folder
+        productManager.dumpData();
+    }
+
+    @Benchmark
+    public Product findProduct() throws ProductManagerException {
+        return productManager.findProduct(randomId());
+    }
+
+    @Benchmark
+    public Product reviewProduct() {
+        return productManager.reviewProduct(randomId(), Rating.FOUR_STAR, "Yet another review");
+    }
+
+    @Benchmark
+    public void printProductReport() {
+        productManager.printProductReport(randomId(), randomLanguageTag(), "bench");
+    }
+
+    @Benchmark
+    public Map<String, String> getDiscounts() {
+        return productManager.getDiscounts(randomLanguageTag());
+    }
+
+    @Benchmark
+    public Product parseProduct() throws ProductManagerException {
+        int id = randomId();
+        return productManager.parseProduct("D, " + id + ", Drink " + id + ", 1.99, 3, ");
+    }
+
+    @Benchmark
+    public Review parseReview() {
+        return productManager.parseReview("4, nice hot cup of Tea");
+    }
+
+    @Benchmark
+    public void printProducts() {
+        productManager.printProducts(p -> p.getRating().ordinal() > 2, byRatingThenName, "en-US");
+    }
+
+    @Benchmark
+    public void printProductsTop50() {
+        productManager.printProducts(ProductQuery.products().minRating(Rating.THREE_STAR)
+                .orderBy(byRatingThenName).limit(50), "en-US");
+    }
+
+    @Benchmark
+    public void dumpData() {
+        productManager.dumpData();
+    }
+
+    @Benchmark
+    public void restoreData() {
+        productManager.restoreData();
+    }
+
+    private int randomId() {
+        return 1 + ThreadLocalRandom.current().nextInt(size);
+    }
+
+    private static String randomLanguageTag() {
+        return LANGUAGE_TAGS[ThreadLocalRandom.current().nextInt(LANGUAGE_TAGS.length)];
+    }
+}
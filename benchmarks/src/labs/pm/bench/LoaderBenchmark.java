@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductLoader;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code LoaderBenchmark} writes a synthetic data folder and times loading it with {@link ProductLoader ProductLoader},
+ * the load {@code loadAllProducts} does on start up, on each number of loader threads
+ * <br>
+ * a load is timed once per iteration, the first ones warm up the JIT and the file system cache
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoaderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int products;
+
+    @Param("5")
+    public int reviewsPerProduct;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private ProductManager productManager;
+    private Path folder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = Benchmarks.workFolders().resolve("data");
+        System.setProperty("review.log.enabled", "false");
+        writeDataFolder(folder, products, reviewsPerProduct);
+        productManager = ProductManager.getInstance();
+    }
+
+    @Benchmark
+    public Map<Product, List<Review>> loadAllProducts() throws IOException {
+        return new ProductLoader(productManager, threads).load(folder);
+    }
+
+    static void writeDataFolder(Path folder, int productCount, int reviewsPerProduct) throws IOException {
+        ResourceBundle config = ResourceBundle.getBundle("config");
+        LocalDate today = LocalDate.now();
+
+        for (int id = 1; id <= productCount; id++) {
+            Path productFile = folder.resolve(MessageFormat.format(config.getString("product.data.file"), id));
+            String product = (id % 2 == 0)
+                    ? "F, " + id + ", Food " + id + ", " + (id % 1000) / 100.0 + ", " + id % 6 + ", " + today.plusDays(id % 7)
+                    : "D, " + id + ", Drink " + id + ", " + (id % 1000) / 100.0 + ", " + id % 6 + ", ";
+            Files.writeString(productFile, product, StandardCharsets.UTF_8);
+
+            Path reviewsFile = folder.resolve(MessageFormat.format(config.getString("reviews.data.file"), id));
+            try (BufferedWriter out = Files.newBufferedWriter(reviewsFile, StandardCharsets.UTF_8)) {
+                for (int review = 0; review < reviewsPerProduct; review++) {
+                    out.write((review % 6) + ", Review " + review + " of product " + id);
+                    out.newLine();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.ExecutionMode;
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.ProductQuery;
+import labs.pm.data.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * {@code ParallelBenchmark} measures the speedup of {@link ExecutionMode#PARALLEL PARALLEL} over
+ * {@link ExecutionMode#SEQUENTIAL SEQUENTIAL} for catalog wide queries, as the catalog grows
+ * <br>
+ * the threshold is turned off so every size runs in both modes. {@code threads} is the size of the catalog
+ * pool, 0 for one per processor, e.g. {@code -p threads=1,2,4}
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "PARALLEL"})
+    public ExecutionMode mode;
+
+    @Param("0")
+    public int threads;
+
+    private ProductManager productManager;
+    private final Predicate<Product> filter = p -> p.getRating().ordinal() >= Rating.TWO_STAR.ordinal();
+    private final Comparator<Product> order = Comparator.comparing(Product::getRating, Comparator.reverseOrder())
+            .thenComparing(Product::getName);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        System.setProperty("execution.threads", Integer.toString(threads));
+        System.setProperty("execution.threshold", "0");
+        System.setProperty("review.log.enabled", "false");
+
+        productManager = ProductManager.getInstance();
+        productManager.setExecutionMode(mode);
+        Random random = new Random(42);
+        for (int id = 1; id <= size; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    Rating.values()[random.nextInt(Rating.values().length)]);
+        }
+    }
+
+    @Benchmark
+    public List<Product> topK() {
+        return productManager.topK(filter, order, 100);
+    }
+
+    @Benchmark
+    public List<Product> fullSort() {
+        return productManager.findProducts(ProductQuery.products().filter(filter).orderBy(order));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.RecordParser;
+import labs.pm.data.Reteable;
+import labs.pm.data.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ParserBenchmark} compares the {@link MessageFormat MessageFormat} parsing of product and review records
+ * with {@link RecordParser RecordParser} on the same synthetic records
+ * <br>
+ * the MessageFormat side repeats the parsing steps of {@code ProductManager} without creating the product.
+ * a MessageFormat is not thread safe, run it on one thread
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    private static final int RECORDS = 1 << 16;
+
+    private final String[] products = new String[RECORDS];
+    private final String[] reviews = new String[RECORDS];
+    private MessageFormat productFormat;
+    private MessageFormat reviewFormat;
+    private RecordParser parser;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ResourceBundle config = ResourceBundle.getBundle("config");
+        String productPattern = config.getString("product.data.format");
+        String reviewPattern = config.getString("review.data.format");
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < RECORDS; i++) {
+            products[i] = (i % 2 == 0)
+                    ? "F, " + i + ", Food " + i + ", " + (i % 1000) / 100.0 + ", " + i % 6 + ", " + today.plusDays(i % 7)
+                    : "D, " + i + ", Drink " + i + ", " + (i % 1000) / 100.0 + ", " + i % 6 + ", ";
+            reviews[i] = (i % 6) + ", Review number " + i;
+        }
+        productFormat = new MessageFormat(productPattern);
+        reviewFormat = new MessageFormat(reviewPattern);
+        parser = new RecordParser(productPattern, reviewPattern);
+    }
+
+    @Benchmark
+    public void messageFormatProduct(Blackhole blackhole) throws ParseException {
+        Object[] values = productFormat.parse(products[next()]);
+        blackhole.consume(Integer.parseInt((String) values[1]));
+        blackhole.consume(values[2]);
+        blackhole.consume(BigDecimal.valueOf(Double.parseDouble((String) values[3])));
+        blackhole.consume(Reteable.convert(Integer.parseInt((String) values[4])));
+        if ("F".equals(values[0])) {
+            blackhole.consume(LocalDate.parse((String) values[5]));
+        }
+    }
+
+    @Benchmark
+    public Product recordParserProduct() throws ParseException {
+        return parser.parseProduct(products[next()]);
+    }
+
+    @Benchmark
+    public void messageFormatReview(Blackhole blackhole) throws ParseException {
+        Object[] values = reviewFormat.parse(reviews[next()]);
+        blackhole.consume(Reteable.convert(Integer.parseInt((String) values[0])));
+        blackhole.consume(values[1]);
+    }
+
+    @Benchmark
+    public Review recordParserReview() throws ParseException {
+        return parser.parseReview(reviews[next()]);
+    }
+
+    private int next() {
+        return next = (next + 1) & (RECORDS - 1);
+    }
+}
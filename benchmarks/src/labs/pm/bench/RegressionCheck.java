@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code RegressionCheck} compares two JMH result files written with {@code -rf csv} and exits with status 1
+ * when a benchmark got slower than its baseline by more than the tolerance
+ * <br>
+ * arguments: baseline results, current results and the tolerance (default 0.2 for 20%).
+ * benchmarks are matched by name, mode, threads and parameters, those missing from either file are ignored
+ * @version 4.0
+ * @author amz
+ */
+public class RegressionCheck {
+
+    private static final String THROUGHPUT = "thrpt";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: RegressionCheck <baseline.csv> <results.csv> [tolerance]");
+            System.exit(2);
+        }
+        Map<String, String[]> baseline = read(Path.of(args[0]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+
+        boolean passed = true;
+        int compared = 0;
+        for (Map.Entry<String, String[]> result : read(Path.of(args[1])).entrySet()) {
+            String[] before = baseline.get(result.getKey());
+            if (before == null) {
+                continue;
+            }
+            compared++;
+            double was = Double.parseDouble(before[4]);
+            double now = Double.parseDouble(result.getValue()[4]);
+            // throughput falls when a benchmark gets slower, times grow
+            double slowdown = THROUGHPUT.equals(result.getValue()[1]) ? was / now : now / was;
+            if (slowdown > 1 + tolerance) {
+                passed = false;
+                System.out.printf("REGRESSION %s: %.3f %s, was %.3f (%.0f%% slower)%n", result.getKey(), now,
+                        result.getValue()[6], was, (slowdown - 1) * 100);
+            }
+        }
+        System.out.println(compared + " benchmarks compared, " + (passed ? "no regression" : "regressions found"));
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the rows by benchmark, mode, threads and parameters
+     */
+    private static Map<String, String[]> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, String[]> rows = new HashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = fields(line);
+            // Benchmark, Mode, Threads, Samples, Score, Score Error, Unit, then one column per parameter
+            StringBuilder key = new StringBuilder(fields[0]).append(' ').append(fields[1]).append(" threads ")
+                    .append(fields[2]);
+            for (int i = 7; i < fields.length; i++) {
+                key.append(' ').append(fields[i]);
+            }
+            rows.put(key.toString(), fields);
+        }
+        return rows;
+    }
+
+    private static String[] fields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
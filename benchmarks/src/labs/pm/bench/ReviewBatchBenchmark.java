@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.ProductReview;
+import labs.pm.data.Rating;
+import labs.pm.data.ReviewBatchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ReviewBatchBenchmark} compares the throughput of {@link ProductManager#reviewProducts(List) reviewProducts}
+ * with one {@code reviewProduct} call per review, both scores are reviews per second
+ * <br>
+ * with the log on every single call is synced on its own while a batch is synced once
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewBatchBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int BATCH_SIZE = 5_000;
+
+    @Param({"false", "true"})
+    public boolean log;
+
+    private ProductManager productManager;
+    private final List<ProductReview> batch = new ArrayList<>(BATCH_SIZE);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        System.setProperty("review.log.enabled", Boolean.toString(log));
+        System.setProperty("review.log.fsync", "true");
+
+        productManager = ProductManager.getInstance();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(id % 1000, 2), Rating.NOT_RATED);
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new ProductReview(1 + (i * 7919) % PRODUCTS, Rating.values()[i % 6], "Review number " + i));
+        }
+    }
+
+    @Benchmark
+    public Product reviewProduct() {
+        ProductReview review = batch.get(next = (next + 1) % BATCH_SIZE);
+        return productManager.reviewProduct(review.productId(), review.rating(), review.comments());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public ReviewBatchResult reviewProducts() {
+        return productManager.reviewProducts(batch);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+import labs.pm.data.ReviewStorage;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+/**
+ * {@code ReviewFootprintBenchmark} measures the heap and off heap memory taken by reviews
+ * with one {@link ReviewStorage ReviewStorage}
+ * <br>
+ * run it once per storage, e.g. {@code ReviewFootprintBenchmark PACKED 2000000}.
+ * the review log is turned off so only the in memory store is measured. unlike the JMH benchmarks of this module
+ * it is a plain program, JMH times code but does not weigh the memory it keeps, e.g.
+ * {@code java -cp benchmarks/build/libs/benchmarks.jar labs.pm.bench.ReviewFootprintBenchmark PACKED 2000000}
+ * @version 4.0
+ * @author amz
+ */
+public class ReviewFootprintBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+
+    public static void main(String[] args) {
+        ReviewStorage storage = ReviewStorage.valueOf(args.length > 0 ? args[0] : "HEAP");
+        int reviews = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        System.setProperty("review.storage", storage.name());
+        System.setProperty("review.log.enabled", "false");
+
+        ProductManager productManager = ProductManager.getInstance();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(id % 1000, 2), Rating.NOT_RATED);
+        }
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < reviews; i++) {
+            productManager.reviewProduct(1 + i % PRODUCTS, Rating.values()[i % 6], "Review number " + i + " of the product");
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        System.out.printf("%s\t%d reviews\theap %6.1f MB (%5.1f B/review)\toff heap %6.1f MB (%5.1f B/review)\t%6.0f ns/review%n",
+                storage, reviews, heap / 1e6, (double) heap / reviews, direct / 1e6, (double) direct / reviews,
+                (double) elapsed / reviews);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Rating;
+import labs.pm.data.Review;
+import labs.pm.data.ReviewBuckets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ReviewOrderBenchmark} measures what a report pays to get the reviews of a product in rating order
+ * <br>
+ * the plain list is copied and sorted for every report, as {@code ProductManager} used to do,
+ * {@link ReviewBuckets ReviewBuckets} is only copied. adding the reviews is timed as well.
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReviewOrderBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int count;
+
+    private Review[] reviews;
+    private List<Review> plain;
+    private List<Review> buckets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        reviews = new Review[count];
+        for (int i = 0; i < count; i++) {
+            reviews[i] = new Review(Rating.values()[random.nextInt(Rating.values().length)], "Review " + i);
+        }
+        plain = addToList();
+        buckets = addToBuckets();
+    }
+
+    @Benchmark
+    public List<Review> addToList() {
+        List<Review> list = new ArrayList<>();
+        Collections.addAll(list, reviews);
+        return list;
+    }
+
+    @Benchmark
+    public List<Review> addToBuckets() {
+        List<Review> list = new ReviewBuckets();
+        Collections.addAll(list, reviews);
+        return list;
+    }
+
+    @Benchmark
+    public List<Review> reportFromList() {
+        List<Review> copy = new ArrayList<>(plain);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public List<Review> reportFromBuckets() {
+        return new ArrayList<>(buckets);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code SnapshotBenchmark} samples the latency of {@code reviewProduct} alone and while reader threads keep
+ * running full catalog reports ({@code printProducts} and {@code getDiscounts})
+ * <br>
+ * readers iterate catalog snapshots without locks, so writer latency should not grow with the number of readers.
+ * the group runs one writer and 4 readers, {@code -tg 1,16} runs 16 readers
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final int PRODUCTS = 100_000;
+
+    private ProductManager productManager;
+    private final Comparator<Product> byPrice = Comparator.comparing(Product::getPrice);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        // printProducts writes to System.out, keep the reports out of the results
+        Benchmarks.silenceConsole();
+        productManager = ProductManager.getInstance();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(id % 1000, 2), Rating.values()[id % 6]);
+        }
+    }
+
+    @Benchmark
+    public Product reviewAlone() {
+        return review();
+    }
+
+    @Benchmark
+    @Group("reviewWhileReading")
+    @GroupThreads(1)
+    public Product writer() {
+        return review();
+    }
+
+    @Benchmark
+    @Group("reviewWhileReading")
+    @GroupThreads(4)
+    public Map<String, String> readers() {
+        productManager.printProducts(p -> p.getRating().ordinal() > 2, byPrice, "en-US");
+        return productManager.getDiscounts("en-US");
+    }
+
+    private Product review() {
+        int id = 1 + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        return productManager.reviewProduct(id, Rating.FOUR_STAR, "Yet another review");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.bench;
+
+import labs.pm.data.Product;
+import labs.pm.data.ProductManager;
+import labs.pm.data.ProductQuery;
+import labs.pm.data.Rating;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * {@code TopKBenchmark} measures {@link ProductManager#topK(Predicate, Comparator, int) topK} against sorting
+ * every matching product, on a large catalog and for several k
+ * <br>
+ * the order is one no index answers, so every product is read. with the parallel threshold above the catalog
+ * size a single heap is timed, below it the parallel chunks, e.g. {@code -p threshold=100000}
+ * @version 4.0
+ * @author amz
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+
+    @Param("1000000")
+    public int products;
+
+    @Param("2000000")
+    public int threshold;
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int k;
+
+    private ProductManager productManager;
+    private final Predicate<Product> filter = p -> p.getRating().ordinal() >= Rating.THREE_STAR.ordinal();
+    private final Comparator<Product> order = Comparator.comparing(Product::getRating, Comparator.reverseOrder())
+            .thenComparing(Product::getName);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Benchmarks.workFolders();
+        System.setProperty("execution.mode", "PARALLEL");
+        System.setProperty("execution.threshold", Integer.toString(threshold));
+        System.setProperty("review.log.enabled", "false");
+
+        productManager = ProductManager.getInstance();
+        Random random = new Random(42);
+        for (int id = 1; id <= products; id++) {
+            productManager.createProduct(id, "Product " + id, BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    Rating.values()[random.nextInt(Rating.values().length)]);
+        }
+        List<Product> top = topK();
+        if (!top.equals(fullSort())) {
+            throw new IllegalStateException("topK differs from the sorted products for k " + k);
+        }
+    }
+
+    @Benchmark
+    public List<Product> fullSort() {
+        return productManager.findProducts(ProductQuery.products().filter(filter).orderBy(order)).subList(0, k);
+    }
+
+    @Benchmark
+    public List<Product> topK() {
+        return productManager.topK(filter, order, k);
+    }
+}
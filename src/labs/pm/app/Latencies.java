@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.app;
+
+import java.util.Arrays;
+
+/**
+ * {@code Latencies} records how long each {@link Shop Shop} client took for each operation
+ * <br>
+ * every client writes its own slot, so recording needs no lock, and the slots are read once every client is done.
+ * only calls that completed are recorded, a call that failed, or that was never made because the client failed
+ * before, is counted as failed and left out of the percentiles
+ * @version 4.0
+ * @author amz
+ */
+class Latencies {
+
+    enum Operation {
+        DISCOUNTS("getDiscounts"),
+        REVIEW("reviewProduct"),
+        REPORT("printProductReport");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * slot of a call that did not complete
+     */
+    private static final long FAILED = -1;
+
+    private final long[][] nanos;
+
+    Latencies(int clients) {
+        nanos = new long[Operation.values().length][clients];
+        for (long[] operation : nanos) {
+            Arrays.fill(operation, FAILED);
+        }
+    }
+
+    /**
+     * records a call that completed
+     */
+    void record(Operation operation, int client, long elapsedNanos) {
+        nanos[operation.ordinal()][client] = elapsedNanos;
+    }
+
+    /**
+     * records a call that returned without doing its work, e.g. a review that was not applied
+     */
+    void failed(Operation operation, int client) {
+        nanos[operation.ordinal()][client] = FAILED;
+    }
+
+    /**
+     * @param elapsedNanos wall clock time of the whole run
+     * @return one line per operation with its throughput and latency percentiles
+     */
+    String summary(long elapsedNanos) {
+        StringBuilder summary = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            long[] calls = nanos[operation.ordinal()];
+            long[] sorted = Arrays.stream(calls).filter(elapsed -> elapsed != FAILED).sorted().toArray();
+            summary.append(String.format("%-20s%10d ops%8d failed%12.1f ops/s   p50 %10.1f us   p99 %10.1f us   max %10.1f us%n",
+                    operation.label, sorted.length, calls.length - sorted.length, sorted.length * 1e9 / elapsedNanos,
+                    percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3,
+                    percentile(sorted, 1.0) / 1e3));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * @return the nearest rank percentile of sorted values
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
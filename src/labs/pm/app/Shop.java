@@ -15,6 +15,7 @@ import java.time.LocalDate;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -25,18 +26,35 @@ import java.util.stream.Stream;
 
 /**
  * {@code Shop} class represents an application that manages Products
+ * <br>
+ * it starts by driving a load of clients, each getting the discounts, reviewing a product and printing its report,
+ * then reports the throughput and latency of each operation.
+ * arguments: number of clients, {@code VIRTUAL} or {@code PLATFORM} threads, and the platform pool size,
+ * e.g. {@code Shop 10000 VIRTUAL} or {@code Shop 10000 PLATFORM 50}. by default 5 clients run on 5 platform threads
  * @version 4.0
  * @author amz
  */
 public class Shop {
+
+    /**
+     * clients whose log is printed, the others only count in the latencies
+     */
+    private static final int LOGGED_CLIENTS = 5;
+
     public static void main(String[] args) {
 
+        int clientTotal = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        boolean virtualThreads = args.length > 1 && args[1].equalsIgnoreCase("VIRTUAL");
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
         AtomicInteger clientCount = new AtomicInteger(0);
+        Latencies latencies = new Latencies(clientTotal);
 
         ProductManager productManager = ProductManager.getInstance();
 
         Callable<String> client = () -> {
-            String clientId = "Client " + clientCount.incrementAndGet();
+            int clientIndex = clientCount.getAndIncrement();
+            String clientId = "Client " + (clientIndex + 1);
             String threadName = Thread.currentThread().getName();
             int productId = ThreadLocalRandom.current().nextInt(63) + 101;
             String languageTag = ProductManager.getSupportedLocales()
@@ -48,8 +66,11 @@ public class Shop {
 
             log.append(clientId + " " + threadName + "\n-\t start of log\t-\n");
 
-            // code will be placed here
-            log.append(productManager.getDiscounts(languageTag)
+            long start = System.nanoTime();
+            Map<String, String> discounts = productManager.getDiscounts(languageTag);
+            latencies.record(Latencies.Operation.DISCOUNTS, clientIndex, System.nanoTime() - start);
+
+            log.append(discounts
                     .entrySet()
                     .stream()
                     .map(entry -> entry.getKey() + "\t" + entry.getValue())
@@ -57,14 +78,22 @@ public class Shop {
             );
 
 
+            start = System.nanoTime();
             Product product = productManager.reviewProduct(productId, Rating.FOUR_STAR, "Yet another review");
+            if (product != null) {
+                latencies.record(Latencies.Operation.REVIEW, clientIndex, System.nanoTime() - start);
+            } else {
+                latencies.failed(Latencies.Operation.REVIEW, clientIndex);
+            }
 
             log.append((product != null)
                     ? "\nProduct " + productId + "reviewed\n"
                     : "\nProduct " + productId + "not reviewed\n"
             );
 
+            start = System.nanoTime();
             productManager.printProductReport(productId, languageTag, clientId);
+            latencies.record(Latencies.Operation.REPORT, clientIndex, System.nanoTime() - start);
 
             log.append(clientId + "generated report for " + productId + " product");
 
@@ -75,18 +104,24 @@ public class Shop {
         };
 
         List<Callable<String>> clients = Stream.generate(() -> client)
-                .limit(5)
+                .limit(clientTotal)
                 .collect(Collectors.toList());
 
-        ExecutorService executorService = Executors.newFixedThreadPool(5);
+        // clients block on file io, which a virtual thread does without holding on to a platform thread
+        ExecutorService executorService = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(poolSize);
 
 
         try {
+            long started = System.nanoTime();
             List<Future<String>> results = executorService.invokeAll(clients);
+            long elapsed = System.nanoTime() - started;
 
             executorService.shutdown();
 
             results.stream()
+                    .limit(LOGGED_CLIENTS)
                     .forEach(result -> {
                         try {
                             System.out.println(result.get());
@@ -96,6 +131,16 @@ public class Shop {
                         }
                     });
 
+            System.out.printf("%d clients on %s in %.1f ms, %.1f clients/s%n", clientTotal,
+                    virtualThreads ? "virtual threads" : poolSize + " platform threads", elapsed / 1e6,
+                    clientTotal * 1e9 / elapsed);
+            System.out.println(latencies.summary(elapsed));
+            System.out.println("catalog lock waits");
+            productManager.getMetrics().getLockWaits().forEach(System.out::println);
+            System.out.println("catalog lock holds");
+            productManager.getMetrics().getLockHolds().forEach(System.out::println);
+            System.out.println();
+
         } catch (InterruptedException e) {
             Logger.getLogger(Shop.class.getName()).log(Level.SEVERE, "Error invoking client", e);
             throw new RuntimeException(e);
@@ -175,12 +220,18 @@ public class Shop {
 
 
         Comparator<Product> ratingSorter = (pr1,pr2) -> pr2.getRating().ordinal() - pr1.getRating().ordinal();
-        Comparator<Product> priceSorter = (pr1,pr2) -> pr1.getPrice().compareTo(pr2.getPrice());
+        Comparator<Product> priceSorter = Product.PRICE_ORDER;
 
 
         System.out.println("comparing by rating then price");
         productManager.printProducts(p-> p.getRating().ordinal() >2 ,ratingSorter.thenComparing(priceSorter),"en-US");
 
+        System.out.println("first 50 by rating then price, read from the indexes");
+        productManager.printProducts(ProductQuery.products()
+                .minRating(Rating.THREE_STAR)
+                .orderBy(ProductQuery.BY_RATING_THEN_PRICE)
+                .limit(50), "en-US");
+
 
 
         productManager.getDiscounts("en-US")
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * {@code CatalogExecutor} runs stream operations over the catalog in the current {@link ExecutionMode ExecutionMode}
+ * <br>
+ * parallel streams run in the fork join pool of the task that starts them, so the operation is submitted
+ * to a pool of its own rather than left to the common pool, which the callers and other libraries share.
+ * below the threshold splitting the stream costs more than it saves and the operation runs sequentially
+ * on the calling thread.
+ * <br>
+ * the operation must only use collectors and state that are safe to combine from several threads,
+ * e.g. {@code groupingByConcurrent} rather than {@code groupingBy} into a shared map
+ * @version 4.0
+ * @author amz
+ **/
+class CatalogExecutor {
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+    private volatile ExecutionMode mode;
+
+    /**
+     * @param threads number of pool threads, 0 or less uses one per available processor
+     * @param threshold smallest number of products run in parallel
+     */
+    CatalogExecutor(ExecutionMode mode, int threads, int threshold) {
+        this.mode = mode;
+        this.threshold = threshold;
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("catalog-worker-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    ExecutionMode getMode() {
+        return mode;
+    }
+
+    void setMode(ExecutionMode mode) {
+        this.mode = mode;
+    }
+
+    int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * applies a terminal operation to a stream, in parallel when the mode and the size allow it
+     * @param size number of products the stream reads
+     * @return the result of the operation
+     */
+    <S, T> T run(Stream<S> stream, int size, Function<? super Stream<S>, T> operation) {
+        if (mode == ExecutionMode.SEQUENTIAL || size < threshold) {
+            return operation.apply(stream.sequential());
+        }
+        return pool.submit(() -> operation.apply(stream.parallel())).join();
+    }
+}
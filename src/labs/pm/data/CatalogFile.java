@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@code CatalogFile} reads and writes the whole catalog as a single text file, instead of the two files per product
+ * of the data folder layout
+ * <br>
+ * every product record, as in a {@code product.data.file}, is followed by its reviews, each being a record
+ * as in a {@code reviews.data.file} prefixed with {@code R, }. e.g.
+ * <pre>
+ * D, 101, Tea, 1.99, 0,
+ * R, 4, Nice hot cup of Tea
+ * R, 2, Rather weak tea
+ * F, 102, Cake, 3.99, 0, 2024-10-17
+ * R, 5, \N
+ * </pre>
+ * review comments are escaped so a review stays on one line: a backslash is written {@code \\}, a line feed
+ * {@code \n}, a carriage return {@code \r}, and a review without comments has {@code \N} as comments.
+ * <br>
+ * both ways stream through a fixed size direct buffer over a {@link FileChannel FileChannel}, so reading or writing
+ * millions of lines takes the same memory besides the catalog itself. lines that can not be parsed are logged
+ * and skipped, the reviews of a product that could not be parsed with them
+ * @version 4.0
+ * @author amz
+ **/
+class CatalogFile {
+
+    private static final Logger logger = Logger.getLogger(CatalogFile.class.getName());
+
+    static final String REVIEW_PREFIX = "R, ";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * the comments of a review without comments
+     */
+    static final String NULL_COMMENTS = "\\N";
+
+    /**
+     * writes the catalog next to the target and moves it in place, so a crash never leaves half a catalog
+     * @return the number of bytes written
+     */
+    static long write(Path file, Map<Product, List<Review>> products, ProductManager productManager,
+                      ReportWriter out) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long size;
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.open(channel, StandardCharsets.UTF_8);
+            for (Map.Entry<Product, List<Review>> entry : products.entrySet()) {
+                out.append(out.line().append(productManager.formatProduct(entry.getKey())).append('\n'));
+                for (Review review : entry.getValue()) {
+                    out.append(out.line().append(REVIEW_PREFIX)
+                            .append(productManager.formatReview(review.getRating(), escape(review.getComments())))
+                            .append('\n'));
+                }
+            }
+            out.close();
+            channel.force(false);
+            size = channel.position();
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return size;
+    }
+
+    static Map<Product, List<Review>> read(Path file, ProductManager productManager) throws IOException {
+        Reader reader = new Reader(productManager);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            // UTF-8 never decodes to more chars than bytes, so the chars always fit
+            CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            StringBuilder line = new StringBuilder();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput) {
+                    decoder.flush(chars);
+                }
+                // a character split across two reads stays in the buffer for the next one
+                bytes.compact();
+                char[] text = chars.array();
+                int from = 0;
+                for (int i = 0; i < chars.position(); i++) {
+                    if (text[i] == '\n') {
+                        reader.accept(line.append(text, from, i - from));
+                        line.setLength(0);
+                        from = i + 1;
+                    }
+                }
+                // the start of a line continued by the next read
+                line.append(text, from, chars.position() - from);
+                chars.clear();
+            }
+            if (!line.isEmpty()) {
+                reader.accept(line);
+            }
+        }
+        if (reader.skipped > 0) {
+            logger.log(Level.WARNING, "Skipped " + reader.skipped + " lines of " + file);
+        }
+        return reader.loaded;
+    }
+
+    /**
+     * @return the comments as a review record of the file holds them
+     */
+    static String escape(String comments) {
+        if (comments == null) {
+            return NULL_COMMENTS;
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < comments.length(); i++) {
+            char c = comments.charAt(i);
+            String escape = switch (c) {
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (escape != null && escaped == null) {
+                escaped = new StringBuilder(comments.length() + 16).append(comments, 0, i);
+            }
+            if (escaped != null) {
+                if (escape != null) {
+                    escaped.append(escape);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? comments : escaped.toString();
+    }
+
+    /**
+     * reverses {@link #escape(String) escape}, a backslash before any other character is kept as it is
+     */
+    static String unescape(String text) {
+        if (NULL_COMMENTS.equals(text)) {
+            return null;
+        }
+        int backslash = text.indexOf('\\');
+        if (backslash < 0) {
+            return text;
+        }
+        StringBuilder comments = new StringBuilder(text.length()).append(text, 0, backslash);
+        for (int i = backslash; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(i + 1);
+                char unescaped = switch (next) {
+                    case '\\' -> '\\';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> 0;
+                };
+                if (unescaped != 0) {
+                    comments.append(unescaped);
+                    i++;
+                    continue;
+                }
+            }
+            comments.append(c);
+        }
+        return comments.toString();
+    }
+
+    /**
+     * adds each line to the product read last
+     */
+    private static final class Reader {
+
+        private final ProductManager productManager;
+        private final Map<Product, List<Review>> loaded = new ConcurrentHashMap<>();
+        private List<Review> reviews;
+        private long skipped;
+
+        Reader(ProductManager productManager) {
+            this.productManager = productManager;
+        }
+
+        void accept(StringBuilder line) {
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            if (line.isEmpty()) {
+                return;
+            }
+            if (isReview(line)) {
+                Review review = reviews == null ? null
+                        : productManager.parseReview(line.substring(REVIEW_PREFIX.length()));
+                if (review == null) {
+                    skipped++;
+                } else {
+                    reviews.add(new Review(review.getRating(), unescape(review.getComments())));
+                }
+                return;
+            }
+            reviews = null;
+            try {
+                Product product = productManager.readProduct(line.toString());
+                if (product != null && loaded.putIfAbsent(product, productManager.newReviews()) == null) {
+                    reviews = loaded.get(product);
+                } else {
+                    skipped++;
+                }
+            } catch (ProductManagerException e) {
+                skipped++;
+            }
+        }
+
+        private static boolean isReview(CharSequence line) {
+            if (line.length() < REVIEW_PREFIX.length()) {
+                return false;
+            }
+            for (int i = 0; i < REVIEW_PREFIX.length(); i++) {
+                if (line.charAt(i) != REVIEW_PREFIX.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
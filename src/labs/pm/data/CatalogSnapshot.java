@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@code CatalogSnapshot} is an immutable, versioned view of every product in the catalog
+ * <br>
+ * products are kept in fixed size chunks, a new version copies the chunk list and only the
+ * chunk that changed, so a writer pays O(size / CHUNK_SIZE + CHUNK_SIZE) instead of copying the whole catalog.
+ * <br>
+ * readers iterate a snapshot without any lock and always see a consistent point in time
+ * @version 4.0
+ * @author amz
+ **/
+final class CatalogSnapshot {
+
+    private static final int CHUNK_BITS = 10;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(new Product[0][], 0, 0);
+
+    private final Product[][] chunks;
+    private final int size;
+    private final long version;
+
+    private CatalogSnapshot(Product[][] chunks, int size, long version) {
+        this.chunks = chunks;
+        this.size = size;
+        this.version = version;
+    }
+
+    /**
+     * builds the first version of a catalog, products take positions in iteration order
+     */
+    static CatalogSnapshot of(Collection<Product> products, long version) {
+        Product[] all = products.toArray(new Product[0]);
+        Product[][] chunks = new Product[(all.length + CHUNK_SIZE - 1) >>> CHUNK_BITS][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Arrays.copyOfRange(all, i << CHUNK_BITS, Math.min(all.length, (i + 1) << CHUNK_BITS));
+        }
+        return new CatalogSnapshot(chunks, all.length, version);
+    }
+
+    /**
+     * @return a new version with the product added at position {@link #size() size()}
+     */
+    CatalogSnapshot append(Product product) {
+        int chunk = size >>> CHUNK_BITS;
+        int offset = size & (CHUNK_SIZE - 1);
+        Product[][] copy;
+        if (offset == 0) {
+            copy = Arrays.copyOf(chunks, chunks.length + 1);
+            copy[chunk] = new Product[]{product};
+        } else {
+            copy = chunks.clone();
+            copy[chunk] = Arrays.copyOf(chunks[chunk], offset + 1);
+            copy[chunk][offset] = product;
+        }
+        return new CatalogSnapshot(copy, size + 1, version + 1);
+    }
+
+    /**
+     * @return a new version with the product at the given position replaced
+     */
+    CatalogSnapshot replace(int position, Product product) {
+        int chunk = position >>> CHUNK_BITS;
+        Product[][] copy = chunks.clone();
+        copy[chunk] = chunks[chunk].clone();
+        copy[chunk][position & (CHUNK_SIZE - 1)] = product;
+        return new CatalogSnapshot(copy, size, version + 1);
+    }
+
+    /**
+     * @return a new version with the products at the given positions replaced, each chunk being copied once
+     */
+    CatalogSnapshot replaceAll(int[] positions, Product[] products, int count) {
+        Product[][] copy = chunks.clone();
+        boolean[] copied = new boolean[chunks.length];
+        for (int i = 0; i < count; i++) {
+            int chunk = positions[i] >>> CHUNK_BITS;
+            if (!copied[chunk]) {
+                copy[chunk] = chunks[chunk].clone();
+                copied[chunk] = true;
+            }
+            copy[chunk][positions[i] & (CHUNK_SIZE - 1)] = products[i];
+        }
+        return new CatalogSnapshot(copy, size, version + 1);
+    }
+
+    Product get(int position) {
+        return chunks[position >>> CHUNK_BITS][position & (CHUNK_SIZE - 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    Stream<Product> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+}
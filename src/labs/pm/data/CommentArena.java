@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@code CommentArena} is an append only store of review comments, encoded in UTF-8 in direct buffers
+ * <br>
+ * each comment is its byte length followed by its bytes, addressed by a {@code long} made of the chunk number
+ * and the position in the chunk. comments are never removed, the chunks are freed with the arena once no
+ * {@link PackedReviews PackedReviews} refers to it.
+ * <br>
+ * comments can be added and read concurrently, a comment is read through the address {@link #add(String) add}
+ * returned, so it is always complete
+ * @version 4.0
+ * @author amz
+ **/
+final class CommentArena {
+
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int NULL_COMMENT = -1;
+
+    private final Lock lock = new ReentrantLock();
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private ByteBuffer current;
+    private long used;
+
+    /**
+     * @return the address of the comment in the arena
+     */
+    long add(String comments) {
+        byte[] bytes = comments == null ? null : comments.getBytes(StandardCharsets.UTF_8);
+        int length = Integer.BYTES + (bytes == null ? 0 : bytes.length);
+        lock.lock();
+        try {
+            if (current == null || current.remaining() < length) {
+                // a comment longer than a chunk gets a chunk of its own
+                current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+                ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[chunks.length] = current;
+                chunks = grown;
+            }
+            int position = current.position();
+            current.putInt(bytes == null ? NULL_COMMENT : bytes.length);
+            if (bytes != null) {
+                current.put(bytes);
+            }
+            used += length;
+            return (long) (chunks.length - 1) << 32 | position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String get(long address) {
+        ByteBuffer chunk = chunks[(int) (address >>> 32)];
+        int position = (int) address;
+        int length = chunk.getInt(position);
+        if (length == NULL_COMMENT) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return bytes taken by the comments, without the unused end of the chunks
+     */
+    long getBytesUsed() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+/**
+ * how {@link ProductManager} guards reviews against concurrent access
+ * @author amz
+ **/
+public enum ConcurrencyMode {
+
+    /**
+     * a single read write lock for the whole catalog, every review takes the write lock
+     */
+    GLOBAL,
+
+    /**
+     * the catalog lock only guards its structure, reviews of a product take one of a fixed set of stripe locks
+     */
+    STRIPED
+}
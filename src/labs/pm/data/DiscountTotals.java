@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@code DiscountTotals} keeps the discount totals of the catalog per {@link Rating Rating}, in cents
+ * <br>
+ * the discounts are split by when they apply: always for plain products, during happy hour for
+ * {@link Drink drinks}, and on their best before day for {@link Food food}, food totals being kept per day.
+ * the totals that apply at a given time are then summed in a few steps per rating, the day or the time
+ * moving on needs no update at all. a day is dropped once it has no food left or it is over, i.e. it comes before
+ * the latest day {@link #totals(LocalDate, LocalTime) totals} were asked for.
+ * <br>
+ * products are added and removed as the catalog changes, reviews of different products may do so concurrently
+ * @version 4.0
+ * @author amz
+ **/
+class DiscountTotals {
+
+    private static final int RATINGS = Rating.values().length;
+
+    private final Lock lock = new ReentrantLock();
+    private final int[] products = new int[RATINGS];
+    private final long[] always = new long[RATINGS];
+    private final long[] happyHour = new long[RATINGS];
+    private final Map<LocalDate, Day> bestBefore = new HashMap<>();
+
+    /**
+     * food best before an earlier day is not totalled any more
+     */
+    private LocalDate firstDay = LocalDate.MIN;
+
+    /**
+     * the food best before one day
+     */
+    private static final class Day {
+        private final long[] cents = new long[RATINGS];
+        private int products;
+    }
+
+    /**
+     * where the discount of a product is totalled: its best before day for food, happy hour for drinks,
+     * neither for plain products
+     */
+    record Slot(boolean food, LocalDate bestBefore, boolean happyHour, Rating rating) {
+
+        static Slot of(Product product) {
+            boolean food = product instanceof Food;
+            return new Slot(food, food ? product.getBestBefore() : null, product instanceof Drink, product.getRating());
+        }
+    }
+
+    void add(Product product) {
+        update(product, 1);
+    }
+
+    /**
+     * adds products already grouped by slot, e.g. with
+     * {@code groupingByConcurrent(Slot::of, summarizingLong(Product::getDiscountCents))}
+     * @param slots the number of products and the discount total in cents of each slot
+     */
+    void addAll(Map<Slot, LongSummaryStatistics> slots) {
+        lock.lock();
+        try {
+            slots.forEach((slot, totals) -> add(slot, (int) totals.getCount(), totals.getSum()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void remove(Product product) {
+        update(product, -1);
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            for (int rating = 0; rating < RATINGS; rating++) {
+                products[rating] = 0;
+                always[rating] = 0;
+                happyHour[rating] = 0;
+            }
+            bestBefore.clear();
+            firstDay = LocalDate.MIN;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param today the current day, days before it are dropped so it must not go back
+     * @return the discount totals in cents that apply at the given time, for each rating that has products
+     */
+    Map<Rating, Long> totals(LocalDate today, LocalTime now) {
+        Map<Rating, Long> totals = new HashMap<>();
+        lock.lock();
+        try {
+            if (today.isAfter(firstDay)) {
+                firstDay = today;
+                bestBefore.keySet().removeIf(day -> day != null && day.isBefore(today));
+            }
+            Day day = bestBefore.get(today);
+            long[] food = day == null ? null : day.cents;
+            boolean drinks = Drink.isHappyHour(now);
+            for (int rating = 0; rating < RATINGS; rating++) {
+                if (products[rating] > 0) {
+                    long total = always[rating]
+                            + (drinks ? happyHour[rating] : 0)
+                            + (food == null ? 0 : food[rating]);
+                    totals.put(Rating.values()[rating], total);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return totals;
+    }
+
+    /**
+     * @return the number of days food totals are kept for
+     */
+    int days() {
+        lock.lock();
+        try {
+            return bestBefore.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(Product product, int sign) {
+        Slot slot = Slot.of(product);
+        long cents = sign * product.getDiscountCents();
+        lock.lock();
+        try {
+            add(slot, sign, cents);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * the caller holds the lock
+     * @param count products added, negative when removed
+     */
+    private void add(Slot slot, int count, long cents) {
+        int rating = slot.rating().ordinal();
+        products[rating] += count;
+        if (!slot.food()) {
+            (slot.happyHour() ? happyHour : always)[rating] += cents;
+        } else if (slot.bestBefore() == null || !slot.bestBefore().isBefore(firstDay)) {
+            Day day = bestBefore.computeIfAbsent(slot.bestBefore(), date -> new Day());
+            day.products += count;
+            day.cents[rating] += cents;
+            if (day.products == 0) {
+                bestBefore.remove(slot.bestBefore());
+            }
+        }
+    }
+}
@@ -15,19 +15,31 @@ import java.time.LocalTime;
  * @author amz
  **/
 public final class Drink extends Product {
+
+    private static final long serialVersionUID = 8688776408010262038L;
+
     Drink(int id, String name, BigDecimal price, Rating rating) {
         super(id, name, price, rating);
     }
 
+    private Drink(Drink drink, Rating rating) {
+        super(drink, rating);
+    }
+
     @Override
     public BigDecimal getDiscount() {
-        LocalTime localTime = LocalTime.now();
+        return isHappyHour(LocalTime.now()) ? super.getDiscount() : BigDecimal.ZERO;
+    }
 
-        return (localTime.isAfter(LocalTime.of(17,30)) && localTime.isBefore(LocalTime.of(18,30))) ? super.getDiscount() : BigDecimal.ZERO;
+    /**
+     * drinks are discounted between 17:30 and 18:30
+     */
+    static boolean isHappyHour(LocalTime localTime) {
+        return localTime.isAfter(LocalTime.of(17,30)) && localTime.isBefore(LocalTime.of(18,30));
     }
 
     @Override
     public Product applyRating(Rating newRating) {
-        return new Drink(getId(),getName(),getPrice(),newRating);
+        return new Drink(this, newRating);
     }
 }
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+/**
+ * how {@link ProductManager} runs operations over the whole catalog, such as ordered queries
+ * and rebuilding its aggregates after a load
+ * @author amz
+ **/
+public enum ExecutionMode {
+
+    /**
+     * every operation runs on the calling thread
+     */
+    SEQUENTIAL,
+
+    /**
+     * operations over catalogs of at least {@code execution.threshold} products run as parallel streams
+     * on a dedicated fork join pool, smaller ones on the calling thread
+     */
+    PARALLEL
+}
@@ -15,6 +15,9 @@ import java.time.LocalDate;
  * @author amz
  **/
 public final class Food extends Product {
+
+    private static final long serialVersionUID = -2012587646685790465L;
+
     private LocalDate bestBefore;
 
     Food(int id, String name, BigDecimal price, Rating rating, LocalDate bestBefore) {
@@ -22,6 +25,11 @@ public final class Food extends Product {
         this.bestBefore = bestBefore;
     }
 
+    private Food(Food food, Rating rating) {
+        super(food, rating);
+        this.bestBefore = food.bestBefore;
+    }
+
     public LocalDate getBestBefore() {
         return bestBefore;
     }
@@ -34,7 +42,7 @@ public final class Food extends Product {
 
     @Override
     public Product applyRating(Rating newRating) {
-        return  new Food(getId(),getName(),getPrice(),newRating, bestBefore);
+        return new Food(this, newRating);
 
     }
 }
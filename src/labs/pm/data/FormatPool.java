@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * {@code FormatPool} lends out formats that are not thread safe, such as {@link java.text.NumberFormat NumberFormat}
+ * and {@link java.text.MessageFormat MessageFormat}, one caller at a time
+ * <br>
+ * a borrowed format is an idle one or a new one, and a bounded number of returned formats is kept for reuse.
+ * the number of formats therefore follows the callers formatting at once rather than the number of threads,
+ * which grows without bound with virtual threads
+ * @version 4.0
+ * @author amz
+ **/
+final class FormatPool<T> {
+
+    /**
+     * formatting never blocks, so there are rarely more callers at once than processors
+     */
+    private static final int CAPACITY = Runtime.getRuntime().availableProcessors();
+
+    private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final Supplier<T> factory;
+
+    FormatPool(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return an idle format, or a new one when none is left
+     */
+    T acquire() {
+        T format = idle.poll();
+        if (format == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return format;
+    }
+
+    void release(T format) {
+        if (idleCount.incrementAndGet() > CAPACITY) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(format);
+    }
+}
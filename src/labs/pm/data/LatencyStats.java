@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+/**
+ * {@code LatencyStats} is a snapshot of the count, failures and latency percentiles of an operation or a lock,
+ * durations are in nanoseconds
+ * <br>
+ * it is how {@link MetricsMXBean MetricsMXBean} publishes a histogram, JMX clients see it as composite data
+ * @param name operation or lock name
+ * @param count number of calls, or of lock acquisitions
+ * @param errors calls that failed, always 0 for locks
+ * @version 4.0
+ * @author amz
+ **/
+public record LatencyStats(String name, long count, long errors, long meanNanos, long p50Nanos, long p90Nanos,
+                           long p99Nanos, long p999Nanos, long maxNanos) {
+
+    static LatencyStats of(String name, LatencyHistogram histogram, long errors) {
+        return new LatencyStats(name, histogram.getCount(), errors, histogram.getMean(),
+                histogram.getPercentile(0.50), histogram.getPercentile(0.90), histogram.getPercentile(0.99),
+                histogram.getPercentile(0.999), histogram.getMax());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-20s%10d calls%8d errors   mean %10.1f us   p50 %10.1f us   p99 %10.1f us"
+                        + "   max %10.1f us", name, count, errors, meanNanos / 1e3, p50Nanos / 1e3, p99Nanos / 1e3,
+                maxNanos / 1e3);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * {@code LazyReviews} is the review list of a product restored from a memory mapped snapshot
+ * <br>
+ * the reviews stay encoded in the mapping until the list is first read or changed, then they are decoded once
+ * into {@link ReviewBuckets ReviewBuckets}, which puts them in report order.
+ * its size and rating histogram are known from the snapshot product table without decoding anything.
+ * <br>
+ * like the other review lists it is guarded by the product locks, concurrent readers may both decode
+ * but end up with equal lists
+ * @version 4.0
+ * @author amz
+ **/
+class LazyReviews extends AbstractList<Review> implements RandomAccess {
+
+    private final ByteBuffer block;
+    private final int count;
+    private final int[] histogram;
+
+    private volatile ReviewBuckets reviews;
+
+    /**
+     * @param block the encoded review block of the product, from its first to its last byte
+     */
+    LazyReviews(ByteBuffer block, int count, int[] histogram) {
+        this.block = block;
+        this.count = count;
+        this.histogram = histogram;
+    }
+
+    boolean isMaterialized() {
+        return reviews != null;
+    }
+
+    /**
+     * @return review count by rating ordinal as stored in the snapshot, only valid while the list is not materialized
+     */
+    int[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * @return the encoded reviews, only valid while the list is not materialized
+     */
+    ByteBuffer getBlock() {
+        return block.duplicate();
+    }
+
+    private ReviewBuckets reviews() {
+        ReviewBuckets decoded = reviews;
+        if (decoded == null) {
+            decoded = new ReviewBuckets();
+            ByteBuffer in = block.duplicate();
+            for (int i = 0; i < count; i++) {
+                Rating rating = Reteable.convert(in.get());
+                int length = in.getInt();
+                String comments = null;
+                if (length != SnapshotFile.NULL_STRING) {
+                    byte[] bytes = new byte[length];
+                    in.get(bytes);
+                    comments = new String(bytes, StandardCharsets.UTF_8);
+                }
+                decoded.add(new Review(rating, comments));
+            }
+            reviews = decoded;
+        }
+        return decoded;
+    }
+
+    @Override
+    public Review get(int index) {
+        return reviews().get(index);
+    }
+
+    @Override
+    public int size() {
+        List<Review> decoded = reviews;
+        return decoded == null ? count : decoded.size();
+    }
+
+    /**
+     * adds the review after the reviews of the same rating, see {@link ReviewBuckets#add(Review) ReviewBuckets.add}
+     */
+    @Override
+    public boolean add(Review review) {
+        modCount++;
+        return reviews().add(review);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return reviews().toArray();
+    }
+}
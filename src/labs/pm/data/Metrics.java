@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@code Metrics} counts and times what {@link ProductManager} does, see {@link ProductManager#getMetrics()}
+ * <br>
+ * every public operation has a {@link LatencyHistogram LatencyHistogram} and a failure count, the catalog
+ * read and write locks one histogram for the wait and one for the hold time. report bytes written and
+ * parse failures are plain counters. recording only updates preallocated counters, so metrics stay on.
+ * <br>
+ * the same object is the pull API and the {@link MetricsMXBean MetricsMXBean} registered with the platform
+ * MBean server
+ * @version 4.0
+ * @author amz
+ **/
+public final class Metrics implements MetricsMXBean {
+
+    public static final String OBJECT_NAME = "labs.pm:type=ProductManager,name=Metrics";
+
+    /**
+     * the timed operations, an operation delegating to another one is only timed once
+     */
+    public enum Operation {
+        CREATE_PRODUCT("createProduct"),
+        FIND_PRODUCT("findProduct"),
+        REVIEW_PRODUCT("reviewProduct"),
+        REVIEW_PRODUCTS("reviewProducts"),
+        PRINT_PRODUCT_REPORT("printProductReport"),
+        PRINT_PRODUCTS("printProducts"),
+        FIND_PRODUCTS("findProducts"),
+        GET_DISCOUNTS("getDiscounts"),
+        PARSE_PRODUCT("parseProduct"),
+        PARSE_REVIEW("parseReview"),
+        DUMP_DATA("dumpData"),
+        RESTORE_DATA("restoreData"),
+        EXPORT_DATA("exportData"),
+        LOAD_ALL_PRODUCTS("loadAllProducts");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final LatencyHistogram[] operations = new LatencyHistogram[OPERATIONS.length];
+    private final AtomicLongArray errors = new AtomicLongArray(OPERATIONS.length);
+
+    final LatencyHistogram readLockWait = new LatencyHistogram();
+    final LatencyHistogram readLockHold = new LatencyHistogram();
+    final LatencyHistogram writeLockWait = new LatencyHistogram();
+    final LatencyHistogram writeLockHold = new LatencyHistogram();
+    final LatencyHistogram stripeReadWait = new LatencyHistogram();
+    final LatencyHistogram stripeReadHold = new LatencyHistogram();
+    final LatencyHistogram stripeWriteWait = new LatencyHistogram();
+    final LatencyHistogram stripeWriteHold = new LatencyHistogram();
+
+    private final AtomicLong reportsWritten = new AtomicLong();
+    private final AtomicLong reportBytesWritten = new AtomicLong();
+    private final AtomicLong productParseFailures = new AtomicLong();
+    private final AtomicLong reviewParseFailures = new AtomicLong();
+
+    Metrics() {
+        for (int operation = 0; operation < operations.length; operation++) {
+            operations[operation] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * records a call of an operation
+     * @param startNanos {@link System#nanoTime() System.nanoTime()} when the call started
+     */
+    void record(Operation operation, long startNanos) {
+        operations[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * counts a failed call, which is recorded as well
+     */
+    void failed(Operation operation) {
+        errors.incrementAndGet(operation.ordinal());
+    }
+
+    void reportWritten(long bytes) {
+        reportsWritten.incrementAndGet();
+        reportBytesWritten.addAndGet(bytes);
+    }
+
+    void productParseFailed() {
+        productParseFailures.incrementAndGet();
+    }
+
+    void reviewParseFailed() {
+        reviewParseFailures.incrementAndGet();
+    }
+
+    public LatencyStats getOperation(Operation operation) {
+        return LatencyStats.of(operation.getLabel(), operations[operation.ordinal()],
+                errors.get(operation.ordinal()));
+    }
+
+    @Override
+    public List<LatencyStats> getOperations() {
+        List<LatencyStats> stats = new ArrayList<>(OPERATIONS.length);
+        for (Operation operation : OPERATIONS) {
+            stats.add(getOperation(operation));
+        }
+        return stats;
+    }
+
+    @Override
+    public List<LatencyStats> getLockWaits() {
+        return List.of(LatencyStats.of("read", readLockWait, 0), LatencyStats.of("write", writeLockWait, 0),
+                LatencyStats.of("stripe read", stripeReadWait, 0), LatencyStats.of("stripe write", stripeWriteWait, 0));
+    }
+
+    @Override
+    public List<LatencyStats> getLockHolds() {
+        return List.of(LatencyStats.of("read", readLockHold, 0), LatencyStats.of("write", writeLockHold, 0),
+                LatencyStats.of("stripe read", stripeReadHold, 0), LatencyStats.of("stripe write", stripeWriteHold, 0));
+    }
+
+    @Override
+    public long getReportsWritten() {
+        return reportsWritten.get();
+    }
+
+    @Override
+    public long getReportBytesWritten() {
+        return reportBytesWritten.get();
+    }
+
+    @Override
+    public long getProductParseFailures() {
+        return productParseFailures.get();
+    }
+
+    @Override
+    public long getReviewParseFailures() {
+        return reviewParseFailures.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int operation = 0; operation < operations.length; operation++) {
+            operations[operation].reset();
+            errors.set(operation, 0);
+        }
+        readLockWait.reset();
+        readLockHold.reset();
+        writeLockWait.reset();
+        writeLockHold.reset();
+        stripeReadWait.reset();
+        stripeReadHold.reset();
+        stripeWriteWait.reset();
+        stripeWriteHold.reset();
+        reportsWritten.set(0);
+        reportBytesWritten.set(0);
+        productParseFailures.set(0);
+        reviewParseFailures.set(0);
+    }
+}
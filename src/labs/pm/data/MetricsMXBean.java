@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.List;
+
+/**
+ * management interface of the {@link ProductManager} {@link Metrics Metrics},
+ * registered as {@value Metrics#OBJECT_NAME}
+ * @version 4.0
+ * @author amz
+ **/
+public interface MetricsMXBean {
+
+    /**
+     * @return calls, failures and latencies of each public operation of {@link ProductManager}
+     */
+    List<LatencyStats> getOperations();
+
+    /**
+     * @return time spent waiting for the catalog read and write locks and for the sides of the stripe locks
+     */
+    List<LatencyStats> getLockWaits();
+
+    /**
+     * @return time the catalog read and write locks and the sides of the stripe locks were held
+     */
+    List<LatencyStats> getLockHolds();
+
+    long getReportsWritten();
+
+    long getReportBytesWritten();
+
+    long getProductParseFailures();
+
+    long getReviewParseFailures();
+
+    /**
+     * clears every counter and histogram
+     */
+    void reset();
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * {@code PackedReviews} keeps the reviews of a product as addresses of their comments in a {@link CommentArena}
+ * <br>
+ * like {@link ReviewBuckets ReviewBuckets} it has one bucket per {@link Rating Rating}, read from five stars down,
+ * so the rating of a review is implied by its bucket and the list is always in report order.
+ * a review takes a {@code long} on the heap, the {@link Review Review} objects are views created when read.
+ * <br>
+ * {@link #add(Review) add} puts a review at the end of its rating bucket rather than at the end of the list,
+ * the list can not be changed otherwise.
+ * like the other review lists it is guarded by the product locks
+ * @version 4.0
+ * @author amz
+ **/
+final class PackedReviews extends AbstractList<Review> implements RandomAccess {
+
+    private static final Rating[] RATINGS = Rating.values();
+
+    private final CommentArena arena;
+    private final long[][] buckets = new long[RATINGS.length][];
+    private final int[] counts = new int[RATINGS.length];
+    private int size;
+
+    PackedReviews(CommentArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * adds the review after the reviews of the same rating
+     */
+    @Override
+    public boolean add(Review review) {
+        int level = review.getRating().ordinal();
+        long address = arena.add(review.getComments());
+        long[] bucket = buckets[level];
+        if (bucket == null) {
+            bucket = buckets[level] = new long[4];
+        } else if (counts[level] == bucket.length) {
+            bucket = buckets[level] = Arrays.copyOf(bucket, bucket.length + (bucket.length >> 1));
+        }
+        bucket[counts[level]++] = address;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Review get(int index) {
+        Objects.checkIndex(index, size);
+        for (int level = RATINGS.length - 1; ; level--) {
+            if (index < counts[level]) {
+                return new Review(RATINGS[level], arena.get(buckets[level][index]));
+            }
+            index -= counts[level];
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return review count by rating ordinal, read without creating any review
+     */
+    int[] getHistogram() {
+        return counts.clone();
+    }
+}
@@ -8,10 +8,16 @@
 
 package labs.pm.data;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.Objects;
 
 /**
@@ -21,16 +27,51 @@ import java.util.Objects;
  * </br>
  * each product can have a discount, it can be calculated based on
  * {@link Product.DISCOUNT_RATE DISCOUNT_RATE}
+ * <br>
+ * the price is kept as a {@code long} number of minor units with its scale, {@link BigDecimal BigDecimal}
+ * is only the view {@link #getPrice() getPrice} returns, so discounts and price comparisons use integer math.
+ * a price must fit that {@code long}, i.e. have at most 18 digits whatever its scale, and at most 16 of them
+ * before the decimal point so its discount in cents fits one too
  * @version 4.0
  * @author amz
  **/
 public sealed class Product implements Reteable<Product>, Serializable permits Food,Drink {
+
+    /**
+     * fixed to the value of the first released version so older serialized snapshots stay readable
+     */
+    private static final long serialVersionUID = 8553635133377650042L;
+
+    /**
+     * serialized as the first released version, with the price as a {@link BigDecimal BigDecimal}
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class),
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("price", BigDecimal.class),
+            new ObjectStreamField("rating", Rating.class)
+    };
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * orders products by price without creating any {@link BigDecimal BigDecimal}
+     */
+    public static final Comparator<Product> PRICE_ORDER = Product::comparePrices;
+
     private int id;
     private String name;
     /**
-     * price of the product of type {@link BigDecimal}
+     * price of the product in minor units of {@link #priceScale priceScale}, 1.99 is 199 at scale 2
      */
-    private BigDecimal price;
+    private long priceUnits;
+    private int priceScale;
     private Rating rating;
 
     /**
@@ -40,11 +81,49 @@ public sealed class Product implements Reteable<Product>, Serializable permits F
      * discount rate is 10%
      */
     public static final BigDecimal DISCOUNT_RATE = BigDecimal.valueOf(0.1);
+    private static final long DISCOUNT_UNITS = DISCOUNT_RATE.unscaledValue().longValueExact();
+
+    /**
+     * digits of a price before the decimal point, a tenth of a larger price would not fit a {@code long} of cents
+     */
+    static final int MAX_INTEGER_DIGITS = 16;
 
+    /**
+     * @throws ArithmeticException when the price has more digits than a {@code long} holds, see {@link #priceUnits}
+     */
     Product(int id, String name, BigDecimal price, Rating rating) {
         this.id = id;
         this.name = name;
-        this.price = price;
+        this.priceUnits = priceUnits(price);
+        this.priceScale = price.scale();
+        this.rating = rating;
+    }
+
+    /**
+     * @return the unscaled value of the price
+     * @throws ArithmeticException when the price has more digits than a {@code long} holds,
+     * or more than {@value #MAX_INTEGER_DIGITS} before the decimal point
+     */
+    static long priceUnits(BigDecimal price) {
+        if (price.precision() - price.scale() > MAX_INTEGER_DIGITS) {
+            throw new ArithmeticException("price " + price + " has more than the " + MAX_INTEGER_DIGITS
+                    + " digits before the decimal point a product price can have");
+        }
+        try {
+            return price.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("price " + price + " has more than the 18 digits a product price can have");
+        }
+    }
+
+    /**
+     * copies the product with a new rating
+     */
+    Product(Product product, Rating rating) {
+        this.id = product.id;
+        this.name = product.name;
+        this.priceUnits = product.priceUnits;
+        this.priceScale = product.priceScale;
         this.rating = rating;
     }
 
@@ -57,9 +136,16 @@ public sealed class Product implements Reteable<Product>, Serializable permits F
     }
 
     public BigDecimal getPrice() {
-        return price;
+        return BigDecimal.valueOf(priceUnits, priceScale);
     }
 
+    long getPriceUnits() {
+        return priceUnits;
+    }
+
+    int getPriceScale() {
+        return priceScale;
+    }
 
     /**
      * calculates discount based on
@@ -68,14 +154,76 @@ public sealed class Product implements Reteable<Product>, Serializable permits F
      * @return BigDecimal
      */
     public BigDecimal getDiscount() {
-        return this.price.multiply(DISCOUNT_RATE).setScale(2, RoundingMode.HALF_UP);
+        return BigDecimal.valueOf(getDiscountCents(), 2);
+    }
+
+    /**
+     * the discount rounded half up to cents, as {@code price * DISCOUNT_RATE} set to scale 2 would be
+     * @return the discount in cents whenever it applies, whatever the day or time
+     */
+    long getDiscountCents() {
+        // price units * rate units is the discount at scale priceScale + rate scale
+        int shift = 2 - priceScale - DISCOUNT_RATE.scale();
+        long high = Math.multiplyHigh(priceUnits, DISCOUNT_UNITS);
+        long units = priceUnits * DISCOUNT_UNITS;
+        if (high == units >> 63 && Math.abs(shift) < POWERS_OF_TEN.length) {
+            if (shift <= 0) {
+                long divisor = POWERS_OF_TEN[-shift];
+                long cents = units / divisor;
+                long remainder = Math.abs(units % divisor);
+                return remainder >= divisor - remainder ? cents + Long.signum(units) : cents;
+            }
+            long scaled = scale(units, shift);
+            if (scaled != Long.MIN_VALUE) {
+                return scaled;
+            }
+        }
+        return getPrice().multiply(DISCOUNT_RATE).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * compares the prices of two products, with integer math unless their scales are too far apart
+     */
+    public static int comparePrices(Product p1, Product p2) {
+        return comparePrices(p1.priceUnits, p1.priceScale, p2.priceUnits, p2.priceScale);
+    }
+
+    static int comparePrices(long units1, int scale1, long units2, int scale2) {
+        if (scale1 == scale2) {
+            return Long.compare(units1, units2);
+        }
+        if (scale1 < scale2) {
+            long units = scale(units1, scale2 - scale1);
+            if (units != Long.MIN_VALUE) {
+                return Long.compare(units, units2);
+            }
+        } else {
+            long units = scale(units2, scale1 - scale2);
+            if (units != Long.MIN_VALUE) {
+                return Long.compare(units1, units);
+            }
+        }
+        return BigDecimal.valueOf(units1, scale1).compareTo(BigDecimal.valueOf(units2, scale2));
+    }
+
+    /**
+     * @return {@code units * 10^digits}, {@link Long#MIN_VALUE} when it does not fit a {@code long}
+     */
+    private static long scale(long units, int digits) {
+        if (digits >= POWERS_OF_TEN.length) {
+            return Long.MIN_VALUE;
+        }
+        long factor = POWERS_OF_TEN[digits];
+        long high = Math.multiplyHigh(units, factor);
+        long scaled = units * factor;
+        return high == scaled >> 63 ? scaled : Long.MIN_VALUE;
     }
 
     public Rating getRating() {
         return rating;
     }
     public Product applyRating(Rating newRating) {
-        return new Product(getId(),getName(),getPrice(),newRating);
+        return new Product(this, newRating);
     }
 
     /**
@@ -88,7 +236,30 @@ public sealed class Product implements Reteable<Product>, Serializable permits F
 
     @Override
     public String toString() {
-        return id + ", " + name + ", " + price + ", " + rating.getStars() + ", " + getBestBefore();
+        return id + ", " + name + ", " + getPrice() + ", " + rating.getStars() + ", " + getBestBefore();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("id", id);
+        fields.put("name", name);
+        fields.put("price", getPrice());
+        fields.put("rating", rating);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        id = fields.get("id", 0);
+        name = (String) fields.get("name", null);
+        BigDecimal price = (BigDecimal) fields.get("price", null);
+        try {
+            priceUnits = priceUnits(price);
+        } catch (ArithmeticException e) {
+            throw new InvalidObjectException("product " + id + ", " + e.getMessage());
+        }
+        priceScale = price.scale();
+        rating = (Rating) fields.get("rating", null);
     }
 
     @Override
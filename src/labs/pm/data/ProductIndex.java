@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * {@code ProductIndex} is a primary index keyed by the primitive product id
+ * <br>
+ * it uses open addressing with linear probing over an {@code int[]} of keys,
+ * so lookups never box the id and cost the same whatever the catalog size.
+ * <br>
+ * the index is not thread safe, callers guard it with the {@link ProductManager} locks: ids are only added and
+ * removed under the catalog write lock, while in {@link ConcurrencyMode#STRIPED STRIPED} mode the value of an
+ * id already in the index is replaced under the stripe write lock of that id, so its readers take the
+ * stripe read lock as well
+ * @version 4.0
+ * @author amz
+ **/
+class ProductIndex<V> {
+
+    private static final int EMPTY = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * id 0 collides with the {@link #EMPTY EMPTY} marker so it is kept aside
+     */
+    private Object zeroValue;
+    private boolean hasZero;
+
+    ProductIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    ProductIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int id) {
+        if (id == EMPTY) {
+            return (V) zeroValue;
+        }
+        int slot = slot(id);
+        int key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == id) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(int id, V value) {
+        if (id == EMPTY) {
+            V previous = (V) zeroValue;
+            zeroValue = value;
+            if (!hasZero) {
+                hasZero = true;
+                size++;
+            }
+            return previous;
+        }
+        int slot = slot(id);
+        int key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == id) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        values[slot] = value;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(int id) {
+        if (id == EMPTY) {
+            V previous = (V) zeroValue;
+            if (hasZero) {
+                hasZero = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int slot = slot(id);
+        int key;
+        while ((key = keys[slot]) != EMPTY) {
+            if (key == id) {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        zeroValue = null;
+        hasZero = false;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> action) {
+        if (hasZero) {
+            action.accept((V) zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                action.accept((V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * closes the gap left by a removed key so later probes of the same run still find their keys
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = slot(key);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
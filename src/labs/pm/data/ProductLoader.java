@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@code ProductLoader} reads a data folder of product and review files in parallel
+ * <br>
+ * files are spread over a dedicated {@link ForkJoinPool ForkJoinPool} and collected into a concurrent map,
+ * products are not added to the catalog, the caller swaps the loaded map in.
+ * <br>
+ * the throughput of the last load is logged and available through the getters
+ * @version 4.0
+ * @author amz
+ **/
+public class ProductLoader {
+
+    private static final Logger logger = Logger.getLogger(ProductLoader.class.getName());
+
+    private final ProductManager productManager;
+    private final int parallelism;
+
+    private int productCount;
+    private long reviewCount;
+    private long elapsedNanos;
+
+    /**
+     * @param parallelism number of loader threads, 0 or less uses one per available processor
+     */
+    public ProductLoader(ProductManager productManager, int parallelism) {
+        this.productManager = productManager;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public Map<Product, List<Review>> load(Path folder) throws IOException {
+        long start = System.nanoTime();
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(folder)) {
+            files = list.filter(file -> file.getFileName().toString().startsWith("product"))
+                    .collect(Collectors.toList());
+        }
+
+        Map<Product, List<Review>> loaded = new ConcurrentHashMap<>(files.size() * 4 / 3 + 1);
+        LongAdder reviews = new LongAdder();
+        LongAdder skipped = new LongAdder();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> files.parallelStream().forEach(file -> {
+                Product product = productManager.loadProduct(file);
+                if (product != null) {
+                    List<Review> productReviews = productManager.loadReviews(product, folder);
+                    reviews.add(productReviews.size());
+                    loaded.putIfAbsent(product, productReviews);
+                } else {
+                    skipped.increment();
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Loading interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error loading " + folder, e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        if (skipped.sum() > 0) {
+            // e.g. a price a product can not hold, see Product#priceUnits, each file is logged by loadProduct
+            logger.log(Level.WARNING, "Skipped " + skipped.sum() + " product files of " + folder
+                    + " that could not be read");
+        }
+        productCount = loaded.size();
+        reviewCount = reviews.sum();
+        elapsedNanos = System.nanoTime() - start;
+        logger.log(Level.INFO, "Loaded " + productCount + " products and " + reviewCount + " reviews in "
+                + elapsedNanos / 1_000_000 + " ms on " + parallelism + " threads ("
+                + Math.round(getFilesPerSecond()) + " files/s, " + Math.round(getReviewsPerSecond()) + " reviews/s)");
+        return loaded;
+    }
+
+    public int getProductCount() {
+        return productCount;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getFilesPerSecond() {
+        return elapsedNanos == 0 ? 0 : productCount * 1e9 / elapsedNanos;
+    }
+
+    public double getReviewsPerSecond() {
+        return elapsedNanos == 0 ? 0 : reviewCount * 1e9 / elapsedNanos;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@code ProductLocks} holds the locks of the {@link ProductManager} catalog
+ * <br>
+ * the catalog read write lock guards the catalog structure, in
+ * {@link ConcurrencyMode#STRIPED STRIPED} mode the reviews of a product are guarded
+ * by a stripe read write lock chosen by product id while the catalog read lock is held.
+ * readers of every product, such as snapshots, take the read side of all stripes and leave other readers in.
+ * <br>
+ * an access takes the catalog side first, then the reviews side, each lock method returns when its lock was
+ * acquired, which must be handed back to the matching unlock method so every lock is timed from its own
+ * acquisition. the mode only changes under the catalog write lock, so it is the same when unlocking.
+ * every lock is a {@link TimedLock TimedLock}
+ * @version 4.0
+ * @author amz
+ **/
+class ProductLocks {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    final TimedLock readLock;
+    final TimedLock writeLock;
+
+    private final TimedLock[] stripeReads;
+    private final TimedLock[] stripeWrites;
+    private volatile ConcurrencyMode mode;
+
+    /**
+     * @param metrics records the wait and hold times of the catalog and stripe locks
+     */
+    ProductLocks(ConcurrencyMode mode, int stripes, Metrics metrics) {
+        this.mode = mode;
+        this.readLock = new TimedLock(lock.readLock(), metrics.readLockWait, metrics.readLockHold);
+        this.writeLock = new TimedLock(lock.writeLock(), metrics.writeLockWait, metrics.writeLockHold);
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripeReads = new TimedLock[count];
+        this.stripeWrites = new TimedLock[count];
+        for (int i = 0; i < count; i++) {
+            ReentrantReadWriteLock stripe = new ReentrantReadWriteLock();
+            stripeReads[i] = new TimedLock(stripe.readLock(), metrics.stripeReadWait, metrics.stripeReadHold);
+            stripeWrites[i] = new TimedLock(stripe.writeLock(), metrics.stripeWriteWait, metrics.stripeWriteHold);
+        }
+    }
+
+    ConcurrencyMode getMode() {
+        return mode;
+    }
+
+    /**
+     * switches mode once every lock holder has left
+     */
+    void setMode(ConcurrencyMode mode) {
+        long locked = writeLock.lock();
+        try {
+            this.mode = mode;
+        } finally {
+            writeLock.unlock(locked);
+        }
+    }
+
+    /**
+     * the catalog side of an exclusive access to the reviews of one product, the write lock in
+     * {@link ConcurrencyMode#GLOBAL GLOBAL} mode and the read lock in {@link ConcurrencyMode#STRIPED STRIPED} mode,
+     * followed by {@link #lockReviews(int) lockReviews}
+     */
+    long lockProduct(int id) {
+        while (true) {
+            ConcurrencyMode current = mode;
+            long locked = current == ConcurrencyMode.GLOBAL ? writeLock.lock() : readLock.lock();
+            // the mode only changes under the write lock, so it is stable once we hold either lock
+            if (mode == current) {
+                return locked;
+            }
+            if (current == ConcurrencyMode.GLOBAL) {
+                writeLock.unlock(locked);
+            } else {
+                readLock.unlock(locked);
+            }
+        }
+    }
+
+    /**
+     * the stripe write lock of the product in {@link ConcurrencyMode#STRIPED STRIPED} mode, nothing in
+     * {@link ConcurrencyMode#GLOBAL GLOBAL} mode where the catalog write lock is exclusive already
+     */
+    long lockReviews(int id) {
+        return mode == ConcurrencyMode.STRIPED ? stripe(stripeWrites, id).lock() : 0;
+    }
+
+    void unlockReviews(int id, long locked) {
+        if (mode == ConcurrencyMode.STRIPED) {
+            stripe(stripeWrites, id).unlock(locked);
+        }
+    }
+
+    void unlockProduct(int id, long locked) {
+        if (mode == ConcurrencyMode.GLOBAL) {
+            writeLock.unlock(locked);
+        } else {
+            readLock.unlock(locked);
+        }
+    }
+
+    /**
+     * the catalog side of a shared access to the reviews of one product, followed by
+     * {@link #readReviews(int) readReviews}
+     */
+    long readProduct(int id) {
+        return readLock.lock();
+    }
+
+    /**
+     * the stripe read lock of the product in {@link ConcurrencyMode#STRIPED STRIPED} mode
+     */
+    long readReviews(int id) {
+        return mode == ConcurrencyMode.STRIPED ? stripe(stripeReads, id).lock() : 0;
+    }
+
+    void unlockReadReviews(int id, long locked) {
+        if (mode == ConcurrencyMode.STRIPED) {
+            stripe(stripeReads, id).unlock(locked);
+        }
+    }
+
+    void unlockReadProduct(int id, long locked) {
+        readLock.unlock(locked);
+    }
+
+    /**
+     * the catalog side of a read access to the reviews of every product, followed by
+     * {@link #readAllReviews() readAllReviews}
+     */
+    long readAllProducts() {
+        return readLock.lock();
+    }
+
+    /**
+     * the read side of every stripe in {@link ConcurrencyMode#STRIPED STRIPED} mode, reviewers of either mode are
+     * kept out while other readers carry on. the stripes are timed as one hold, from the moment all of them are held
+     */
+    long readAllReviews() {
+        long locked = 0;
+        if (mode == ConcurrencyMode.STRIPED) {
+            for (TimedLock stripe : stripeReads) {
+                locked = stripe.lock();
+            }
+        }
+        return locked;
+    }
+
+    void unlockReadAllReviews(long locked) {
+        if (mode == ConcurrencyMode.STRIPED) {
+            for (int i = stripeReads.length - 1; i >= 0; i--) {
+                stripeReads[i].unlock(locked);
+            }
+        }
+    }
+
+    void unlockReadAllProducts(long locked) {
+        readLock.unlock(locked);
+    }
+
+    private static TimedLock stripe(TimedLock[] stripes, int id) {
+        int hash = id * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+}
@@ -9,33 +9,42 @@
 package labs.pm.data;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.text.MessageFormat;
-import java.text.NumberFormat;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
-import java.time.format.FormatStyle;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static java.util.Collections.sort;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * @author amz
@@ -47,34 +56,123 @@ public class ProductManager {
 
     private final ResourceBundle config = ResourceBundle.getBundle("config");
 
-    private final MessageFormat reviewFormat = new MessageFormat(config.getString("review.data.format"));
-    private final MessageFormat productFormat = new MessageFormat(config.getString("product.data.format"));
+    // MessageFormat is not thread safe and products are loaded in parallel
+    private final FormatPool<MessageFormat> reviewFormat =
+            new FormatPool<>(() -> new MessageFormat(config.getString("review.data.format")));
+    private final FormatPool<MessageFormat> productFormat =
+            new FormatPool<>(() -> new MessageFormat(config.getString("product.data.format")));
 
-    private final Path reportsFolder = Path.of(config.getString("reports.folder"));
-    private final Path dataFolder = Path.of(config.getString("data.folder"));
-    private final Path tempFolder = Path.of(config.getString("temp.folder"));
+    /**
+     * parses data records without MessageFormat, null when the configured patterns are not supported by it
+     */
+    private final RecordParser recordParser = createRecordParser();
 
-    private Map<Product, List<Review>> products = new HashMap<>();
+    private final Path reportsFolder = folder("reports.folder");
+    private final Path dataFolder = folder("data.folder");
+    private final Path tempFolder = folder("temp.folder");
 
+    private final int loaderParallelism = Integer.parseInt(config.getString("loader.parallelism"));
 
-    private static final ProductManager pm = new ProductManager();
+    private final boolean restoreMapped = Boolean.parseBoolean(config.getString("restore.mapped"));
 
-    public static ProductManager getInstance() {
-        return pm;
-    }
+    /**
+     * write ahead log of reviews, null when it is disabled or could not be opened
+     */
+    private final ReviewLog reviewLog = openReviewLog();
+
+    private Map<Product, List<Review>> products = new ConcurrentHashMap<>();
+
+    /**
+     * primary index by product id, kept consistent with {@link #products products}
+     */
+    private final ProductIndex<Product> index = new ProductIndex<>();
+
+    /**
+     * running review aggregates by product id, the average rating is derived from them
+     */
+    private final ProductIndex<ReviewStats> stats = new ProductIndex<>();
+
+    /**
+     * source of the review versions kept in {@link ReviewStats ReviewStats}, so a version is never given twice
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * immutable view of the catalog for lock free readers, writers publish new versions through {@link #publish publish}
+     */
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    private final Lock publishLock = new ReentrantLock();
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Lock readLock = lock.readLock();
-    private final Lock writeLock = lock.writeLock();
+    /**
+     * position of every product in the {@link #snapshot snapshot} by product id
+     */
+    private final ProductIndex<Integer> positions = new ProductIndex<>();
 
+    /**
+     * discount totals by rating, kept up to date with the catalog so {@link #getDiscounts(String) getDiscounts}
+     * does not go through every product
+     */
+    private final DiscountTotals discounts = new DiscountTotals();
+
+    /**
+     * runs catalog wide operations, in parallel on large catalogs, see {@link ExecutionMode ExecutionMode}
+     */
+    private final CatalogExecutor executor = new CatalogExecutor(ExecutionMode.SEQUENTIAL,
+            Integer.parseInt(setting("execution.threads")), Integer.parseInt(setting("execution.threshold")));
+
+    /**
+     * rating, price and best before indexes of the {@link #snapshot snapshot}, see {@link #findProducts(ProductQuery)}
+     */
+    private final QueryIndex queries = new QueryIndex(executor);
+
+    private final ReviewStorage reviewStorage = ReviewStorage.valueOf(setting("review.storage"));
+
+    /**
+     * comments of the {@link ReviewStorage#PACKED PACKED} review lists of the current catalog
+     */
+    private volatile CommentArena arena = new CommentArena();
+
+
+    // the formatters are created before the instance, which needs the supported language tags
     private static final Map<String, ResourceFormatter> formatters =
             Map.of("en-GB", new ResourceFormatter(Locale.UK),
                     "en-US", new ResourceFormatter(Locale.US),
-                    "es-US", new ResourceFormatter(new Locale("es","US")),
+                    "es-US", new ResourceFormatter(Locale.of("es","US")),
                     "fr-FR", new ResourceFormatter(Locale.FRANCE),
                     "zh-CN", new ResourceFormatter(Locale.CHINA)
                     );
 
+    private static final ProductManager pm = new ProductManager();
+
+    /**
+     * operation, lock, report and parse metrics, also registered as {@value Metrics#OBJECT_NAME}
+     */
+    private final Metrics metrics = new Metrics();
+
+    public static ProductManager getInstance() {
+        return pm;
+    }
+
+    private final ProductLocks locks = new ProductLocks(
+            ConcurrencyMode.valueOf(setting("concurrency.mode")),
+            Integer.parseInt(setting("lock.stripes")), metrics);
+    private final TimedLock readLock = locks.readLock;
+    private final TimedLock writeLock = locks.writeLock;
+
+    private final ReportService reportService = new ReportService(this,
+            Integer.parseInt(config.getString("report.threads")),
+            Integer.parseInt(config.getString("report.queue.capacity")));
+
+    private final ReportCache reportCache = new ReportCache(
+            Integer.parseInt(setting("report.cache.size")), formatters.keySet());
+
+    /**
+     * reports with more reviews are streamed to their file instead of being rendered and cached
+     */
+    private final int streamedReviews = Integer.parseInt(setting("report.stream.reviews"));
+    private final ReportWriter.Pool reportWriters = new ReportWriter.Pool(
+            Integer.parseInt(setting("report.buffer.size")), Integer.parseInt(setting("report.writers")));
+
 //    public ProductManager(Locale locale) {
 //        this(locale.toLanguageTag());
 //        loadAllProducts();
@@ -87,47 +185,84 @@ public class ProductManager {
 //    }
 
     private ProductManager() {
-        loadAllProducts();
+        registerMetrics();
+        if (reviewLog == null) {
+            loadAllProducts();
+        } else {
+            // reviews logged before a shutdown are only durable once they are replayed
+            restoreData();
+        }
+        // workers running lambdas of this class would wait for its initialization, which is this constructor
+        executor.setMode(ExecutionMode.valueOf(setting("execution.mode")));
+        if (reviewLog != null) {
+            scheduleCompaction();
+        }
     }
 
-    private static class ResourceFormatter {
-        private Locale locale;
-        private ResourceBundle resources;
-        private DateTimeFormatter dateformat;
-        private NumberFormat moneyformat;
-
-
-        public ResourceFormatter(Locale locale) {
-            this.locale = locale;
-            resources = ResourceBundle.getBundle("labs.pm.data.resources",locale);
-            dateformat = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT);
-            moneyformat = NumberFormat.getCurrencyInstance(locale);
+    private void registerMetrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(Metrics.OBJECT_NAME));
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Metrics not registered with JMX " + e.getMessage());
+        }
     }
 
-
-    public String formatProduct(Product product) {
-        return MessageFormat.format(resources.getString("product"),
-                product.getName(),
-                moneyformat.format(product.getPrice()),
-                product.getRating().getStars(),
-                dateformat.format(product.getBestBefore())
-        );
+    /**
+     * @return the metrics of every operation since start up or the last {@link Metrics#reset() reset}
+     */
+    public Metrics getMetrics() {
+        return metrics;
     }
 
-    public String formatReview(Review review) {
-        return MessageFormat.format(resources.getString("review"),
-                review.getRating().getStars(),
-                review.getComments()
-        );
+    /**
+     * settings can be overridden with a system property of the same name, e.g. {@code -Ddata.folder=...}
+     */
+    private String setting(String key) {
+        return System.getProperty(key, config.getString(key));
     }
 
-    public String getText(String key) {
-            return resources.getString(key);
-
+    private Path folder(String key) {
+        return Path.of(setting(key));
     }
 
+    private ReviewLog openReviewLog() {
+        if (!Boolean.parseBoolean(setting("review.log.enabled"))) {
+            return null;
+        }
+        try {
+            Files.createDirectories(tempFolder);
+            // an empty log continues the newest snapshot
+            Path latest = latestSnapshot();
+            return new ReviewLog(tempFolder.resolve(setting("review.log.file")),
+                    latest == null ? 0 : SnapshotFile.logGeneration(latest),
+                    Boolean.parseBoolean(setting("review.log.fsync")));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error opening review log, reviews will not be logged " + e.getMessage(), e);
+            return null;
+        }
+    }
 
-
+    /**
+     * folds the review log into a new snapshot whenever it grows past {@code review.log.compact.bytes}
+     */
+    private void scheduleCompaction() {
+        long limit = Long.parseLong(setting("review.log.compact.bytes"));
+        long period = Long.parseLong(setting("review.log.compact.seconds"));
+        ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "review-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                if (reviewLog.size() > limit) {
+                    logger.log(Level.INFO, "Compacting review log of " + reviewLog.size() + " bytes");
+                    dumpData();
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error compacting review log " + e.getMessage(), e);
+            }
+        }, period, period, TimeUnit.SECONDS);
     }
 
 //    public void changeLocale(String languageTag) {
@@ -139,78 +274,242 @@ public class ProductManager {
         return formatters.keySet();
     }
 
+    public ConcurrencyMode getConcurrencyMode() {
+        return locks.getMode();
+    }
 
-    private void printProductReport(Product product, String languageTag, String client) throws IOException {
-        ResourceFormatter formatter = formatters.getOrDefault(languageTag,formatters.get("en-GB"));
+    /**
+     * switches the locking scheme, waits for operations in progress to complete
+     * @param mode the new {@link ConcurrencyMode ConcurrencyMode}
+     */
+    public void setConcurrencyMode(ConcurrencyMode mode) {
+        locks.setMode(mode);
+    }
 
-        String path = MessageFormat.format(config.getString("report.file"),product.getId(), client);
-        Path productFile = reportsFolder.resolve(path);
 
+    public ExecutionMode getExecutionMode() {
+        return executor.getMode();
+    }
 
-        try(PrintWriter out = new PrintWriter(new OutputStreamWriter(Files.newOutputStream(productFile, StandardOpenOption.CREATE),"UTF-8"))) {
-            out.append(formatter.formatProduct(product) + System.lineSeparator());
+    /**
+     * switches how catalog wide operations run, operations in progress complete in the mode they started in
+     * @param mode the new {@link ExecutionMode ExecutionMode}
+     */
+    public void setExecutionMode(ExecutionMode mode) {
+        executor.setMode(mode);
+    }
 
+    private void printProductReport(Product product, String languageTag, String client) throws IOException {
+        byte[] report = cachedReport(product, languageTag);
+        if (report == null) {
+            writeProductReport(product, reviewsOf(product), languageTag, client);
+        } else {
+            writeReport(product, report, client);
+        }
+    }
 
-            // we will read reviews so readLock
-            readLock.lock();
+    /**
+     * looks up a report rendered from the current reviews of the product
+     * @return the report bytes, null on a cache miss
+     */
+    byte[] cachedReport(Product product, String languageTag) {
+        int id = product.getId();
+        long version;
+        long locked = locks.readProduct(id);
+        long reviewsLocked = locks.readReviews(id);
+        try {
+            ReviewStats productStats = stats.get(id);
+            if (productStats == null) {
+                return null;
+            }
+            version = productStats.getVersion();
+        } finally {
+            locks.unlockReadReviews(id, reviewsLocked);
+            locks.unlockReadProduct(id, locked);
+        }
+        return reportCache.get(id, reportLanguage(languageTag), version);
+    }
 
-            List<Review> reviews = products.get(product);
+    private static String reportLanguage(String languageTag) {
+        return formatters.containsKey(languageTag) ? languageTag : "en-GB";
+    }
 
-            sort(reviews);
+    /**
+     * reviews of a product copied along with their {@link ReviewStats#getVersion() version}
+     */
+    record VersionedReviews(List<Review> reviews, long version) {
+    }
 
+    /**
+     * copies the reviews of a product in report order, the product is only locked while copying
+     * @param product the product
+     * @return a copy of the reviews, in report order as they are kept in {@link ReviewBuckets ReviewBuckets}
+     */
+    VersionedReviews reviewsOf(Product product) {
+        List<Review> reviews;
+        long version;
+
+        // we will read reviews so lock the product for reading
+        long locked = locks.readProduct(product.getId());
+        long reviewsLocked = locks.readReviews(product.getId());
+        try {
+            reviews = new ArrayList<>(products.get(product));
+            version = stats.get(product.getId()).getVersion();
+        } finally {
+            locks.unlockReadReviews(product.getId(), reviewsLocked);
+            locks.unlockReadProduct(product.getId(), locked);
+        }
+        return new VersionedReviews(reviews, version);
+    }
 
-            if (reviews.isEmpty()) {
-                out.append(formatter.getText("no.reviews")+ System.lineSeparator());
-            }
-            else {
-                out.append(
-                        reviews.stream()
-                                .map(r->formatter.formatReview(r) + System.lineSeparator())
-                                .collect(Collectors.joining())
-                );
+    /**
+     * caches a report unless the reviews it was rendered from changed since, the check and the insertion are
+     * done under the product lock that every change of the reviews takes
+     */
+    private void cacheReport(int id, String languageTag, long version, byte[] report) {
+        long locked = locks.readProduct(id);
+        long reviewsLocked = locks.readReviews(id);
+        try {
+            ReviewStats productStats = stats.get(id);
+            if (productStats != null && productStats.getVersion() == version) {
+                reportCache.put(id, languageTag, version, report);
             }
+        } finally {
+            locks.unlockReadReviews(id, reviewsLocked);
+            locks.unlockReadProduct(id, locked);
+        }
+    }
 
+    /**
+     * formats, caches and writes a product report, no lock is needed as it only reads its arguments
+     * @return the report file
+     */
+    Path writeProductReport(Product product, VersionedReviews versioned, String languageTag, String client)
+            throws IOException {
+        List<Review> reviews = versioned.reviews();
+        String language = reportLanguage(languageTag);
+        ResourceFormatter formatter = formatters.get(language);
+
+        if (reviews.size() > streamedReviews) {
+            return streamProductReport(product, reviews, formatter, client);
+        }
 
+        StringBuilder txt = formatter.appendProduct(new StringBuilder(), product).append(System.lineSeparator());
 
-        } finally {
+        if (reviews.isEmpty()) {
+            txt.append(formatter.getText("no.reviews")).append(System.lineSeparator());
+        }
+        else {
+            for (Review review : reviews) {
+                formatter.appendReview(txt, review).append(System.lineSeparator());
+            }
+        }
 
-            readLock.unlock();
+        byte[] report = txt.toString().getBytes(StandardCharsets.UTF_8);
+        cacheReport(product.getId(), language, versioned.version(), report);
+        return writeReport(product, report, client);
+    }
+
+    /**
+     * writes an already rendered report
+     * @return the report file
+     */
+    Path writeReport(Product product, byte[] report, String client) throws IOException {
+        Path productFile = reportFile(product, client);
+        Files.write(productFile, report,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        metrics.reportWritten(report.length);
+        return productFile;
+    }
 
+    /**
+     * writes a long report line by line through a pooled {@link ReportWriter ReportWriter},
+     * it is not cached since that would keep the whole report in memory
+     * @return the report file
+     */
+    private Path streamProductReport(Product product, List<Review> reviews, ResourceFormatter formatter, String client)
+            throws IOException {
+        Path productFile = reportFile(product, client);
+        try (FileChannel channel = FileChannel.open(productFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ReportWriter out = reportWriters.acquire();
+            try {
+                out.open(channel, StandardCharsets.UTF_8);
+                out.append(formatter.appendProduct(out.line(), product).append(System.lineSeparator()));
+                if (reviews.isEmpty()) {
+                    out.append(out.line().append(formatter.getText("no.reviews")).append(System.lineSeparator()));
+                }
+                for (Review review : reviews) {
+                    out.append(formatter.appendReview(out.line(), review).append(System.lineSeparator()));
+                }
+                out.close();
+            } finally {
+                reportWriters.release(out);
+            }
+            metrics.reportWritten(channel.position());
         }
+        return productFile;
+    }
+
+    private Path reportFile(Product product, String client) {
+        return reportsFolder.resolve(MessageFormat.format(config.getString("report.file"), product.getId(), client));
+    }
 
+    /**
+     * queues a product report on the {@link ReportService ReportService} instead of writing it on the caller thread
+     * @param id product id
+     * @param languageTag report locale
+     * @param client client name used in the report file name
+     * @return completes with the report file, or exceptionally with {@link ProductManagerException} for an unknown id
+     */
+    public CompletableFuture<Path> printProductReportAsync(int id, String languageTag, String client) {
+        return reportService.submit(id, languageTag, client);
+    }
 
+    public ReportService getReportService() {
+        return reportService;
+    }
+
+    public ReportCache getReportCache() {
+        return reportCache;
     }
 
 
     public Product  createProduct(int id, String name, BigDecimal price, Rating rating, LocalDate bestBefore) {
+        long start = System.nanoTime();
         Product product = null;
+        long locked = writeLock.lock();
         try {
-            writeLock.lock();
-            product =  new Food(id,name,price,rating,bestBefore);
-            products.putIfAbsent(product,new ArrayList<>());
+            product = new Food(id,name,price,rating,bestBefore);
+            addProduct(product);
 
         } catch (Exception e)  {
             logger.log(Level.INFO, "Error creatign product " + e.getMessage());
+            metrics.failed(Metrics.Operation.CREATE_PRODUCT);
             return null;
         }
         finally {
-            writeLock.unlock();
+            writeLock.unlock(locked);
+            metrics.record(Metrics.Operation.CREATE_PRODUCT, start);
         }
         return product;
 
     }
     public Product  createProduct(int id, String name, BigDecimal price, Rating rating) {
+        long start = System.nanoTime();
         Product product = null;
+        long locked = writeLock.lock();
         try {
-            writeLock.lock();
             product = new Drink(id,name,price,rating);
-            products.putIfAbsent(product,new ArrayList<>());
+            addProduct(product);
 
         } catch (Exception e)  {
             logger.log(Level.INFO, "Error creatign product " + e.getMessage());
+            metrics.failed(Metrics.Operation.CREATE_PRODUCT);
             return null;
         } finally {
-            writeLock.unlock();
+            writeLock.unlock(locked);
+            metrics.record(Metrics.Operation.CREATE_PRODUCT, start);
         }
 
 
@@ -218,286 +517,839 @@ public class ProductManager {
 
     }
 
-    public Product reviewProduct(Product p1, Rating rating, String comments) {
+    /**
+     * adds a new product to the catalog and every structure derived from it, a product with the same id is kept
+     * <br>
+     * the caller holds the write lock
+     */
+    private void addProduct(Product product) {
+        if (products.putIfAbsent(product, newReviews()) == null) {
+            int id = product.getId();
+            index.put(id, product);
+            ReviewStats productStats = new ReviewStats();
+            productStats.setVersion(versions.incrementAndGet());
+            stats.put(id, productStats);
+            positions.put(id, snapshot.size());
+            discounts.add(product);
+            publish(catalog -> catalog.append(product));
+            queries.add(product, positions.get(id));
+        }
+    }
 
+    /**
+     * @return an empty review list of the configured {@link ReviewStorage ReviewStorage}
+     */
+    List<Review> newReviews() {
+        return switch (reviewStorage) {
+            case HEAP -> new ReviewBuckets();
+            case PACKED -> new PackedReviews(arena);
+        };
+    }
 
-        int sum = 0, i = 0;
-        boolean reviewed = false;
+    /**
+     * @return whether the list already is in the configured storage, mapped reviews are kept as they are
+     */
+    private boolean isStored(List<Review> reviews) {
+        return reviews instanceof LazyReviews || switch (reviewStorage) {
+            case HEAP -> reviews instanceof ReviewBuckets;
+            case PACKED -> reviews instanceof PackedReviews;
+        };
+    }
 
+    /**
+     * publishes a new version of the catalog snapshot, concurrent writers are applied one after the other
+     */
+    private void publish(UnaryOperator<CatalogSnapshot> change) {
+        publishLock.lock();
+        try {
+            snapshot = change.apply(snapshot);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    public Product reviewProduct(Product p1, Rating rating, String comments) {
+        long start = System.nanoTime();
+        Product rated = review(p1, rating, comments);
+        if (rated == null) {
+            metrics.failed(Metrics.Operation.REVIEW_PRODUCT);
+        }
+        metrics.record(Metrics.Operation.REVIEW_PRODUCT, start);
+        return rated;
+    }
+
+    /**
+     * logs and applies a review
+     * @return the product with its new rating, null when the product is unknown or the review could not be logged
+     */
+    private Product review(Product p1, Rating rating, String comments) {
+        int id = p1.getId();
+        long sequence = 0;
+        long locked = locks.lockProduct(id);
+        long reviewsLocked = locks.lockReviews(id);
 
         try {
+            if (index.get(id) == null) {
+                // nothing unknown may reach the log, it would be replayed at every restore
+                logger.log(Level.INFO, "no product found with the given id : " + id);
+                return null;
+            }
+            if (reviewLog != null) {
+                // write ahead, the review is only applied once it is in the log
+                sequence = reviewLog.append(id, rating, comments);
+            }
+            p1 = applyReview(id, rating, comments);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error logging review " + e.getMessage(), e);
+            return null;
+        } finally {
+            locks.unlockReviews(id, reviewsLocked);
+            locks.unlockProduct(id, locked);
+        }
 
-            writeLock.lock();
+        // the log is forced outside of the product lock so other reviews can join the same sync
+        syncReviewLog(sequence);
+        return p1;
+    }
 
-            List<Review> reviews = products.get(p1);
+    /**
+     * adds a review and rates the product again, the caller holds the product lock
+     * @return the product with its new rating
+     */
+    private Product applyReview(int id, Rating rating, String comments) {
+        // the product of the caller may predate reviews applied since, the indexed one is current under the lock
+        Product previous = index.get(id);
 
-            products.remove(p1, reviews);
+        List<Review> reviews = products.get(previous);
 
-            reviews.add(new Review(rating, comments));
+        products.remove(previous, reviews);
 
-            p1 = p1.applyRating(Reteable.convert(
-                    (int) Math.round(
-                            reviews.stream()
-                                    .mapToInt((review -> review.getRating().ordinal()))
-                                    .average()
-                                    .orElse(0)
-                    )));
+        reviews.add(new Review(rating, comments));
 
-            products.put(p1, reviews);
-        } finally {
-            writeLock.unlock();
+        ReviewStats productStats = stats.get(id);
+        productStats.add(rating);
+        productStats.setVersion(versions.incrementAndGet());
 
-        }
+        discounts.remove(previous);
+        Product p1 = previous.applyRating(productStats.getAverage());
+        discounts.add(p1);
+        reportCache.invalidate(id);
+
+        products.put(p1, reviews);
+        index.put(id, p1);
+
+        Product rated = p1;
+        int position = positions.get(id);
+        publish(catalog -> catalog.replace(position, rated));
+        queries.rate(previous, rated, position);
 
         return p1;
     }
 
-    public Product findProduct(int id) throws ProductManagerException {
+    private void syncReviewLog(long sequence) {
+        if (reviewLog != null) {
+            try {
+                reviewLog.sync(sequence);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error syncing review log " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * applies a review read back from the {@link ReviewLog ReviewLog}, the caller holds the write lock
+     */
+    private void replayReview(int id, Rating rating, String comments) {
+        if (index.get(id) == null) {
+            logger.log(Level.WARNING, "Skipping logged review of unknown product " + id);
+        } else {
+            applyReview(id, rating, comments);
+        }
+    }
 
+    public Product findProduct(int id) throws ProductManagerException {
+        long start = System.nanoTime();
         try {
+            return lookup(id);
+        } catch (ProductManagerException e) {
+            metrics.failed(Metrics.Operation.FIND_PRODUCT);
+            throw e;
+        } finally {
+            metrics.record(Metrics.Operation.FIND_PRODUCT, start);
+        }
+    }
 
-            readLock.lock();
+    private Product lookup(int id) throws ProductManagerException {
 
-            return products.keySet()
-                    .stream()
-                    .filter((product) -> product.getId() == id)
-                    .findFirst()
-                    .orElseThrow(() -> new ProductManagerException("no product found with the given id : " + id));
+        // in STRIPED mode the indexed product is replaced under its stripe lock
+        long locked = locks.readProduct(id);
+        long reviewsLocked = locks.readReviews(id);
+        try {
+            Product product = index.get(id);
+            if (product == null) {
+                throw new ProductManagerException("no product found with the given id : " + id);
+            }
+            return product;
 
         }
         finally {
-            readLock.unlock();
+            locks.unlockReadReviews(id, reviewsLocked);
+            locks.unlockReadProduct(id, locked);
         }
 
     }
 
 
     public Product reviewProduct(int id, Rating rating, String comments) {
+        long start = System.nanoTime();
+        Product rated = null;
         try {
-
-            writeLock.lock();
-            return reviewProduct(findProduct(id),rating,comments);
+            rated = review(lookup(id),rating,comments);
         }
         catch (ProductManagerException e) {
             logger.log(Level.INFO,e.getMessage());
-            return null;
         }
-        finally {
-            writeLock.unlock();
+        if (rated == null) {
+            metrics.failed(Metrics.Operation.REVIEW_PRODUCT);
+        }
+        metrics.record(Metrics.Operation.REVIEW_PRODUCT, start);
+        return rated;
+    }
 
+    /**
+     * reviews many products at once: the batch takes the write lock once, is written to the review log with a
+     * single write and a single sync, and every product is rated again once whatever its number of reviews.
+     * a review of an unknown product or without rating fails on its own, the others are applied
+     * @return the reviewed products and the failed reviews
+     */
+    public ReviewBatchResult reviewProducts(List<ProductReview> batch) {
+        long start = System.nanoTime();
+        List<ReviewBatchResult.Failure> failures = new ArrayList<>();
+        List<Product> rated = new ArrayList<>();
+        // product id in the high bits and batch index in the low bits, sorting groups the reviews by product
+        long[] accepted = new long[batch.size()];
+        int count = 0;
+        long sequence = 0;
+
+        long locked = writeLock.lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                ProductReview review = batch.get(i);
+                String reason = review == null ? "no review"
+                        : review.rating() == null ? "no rating"
+                        : index.get(review.productId()) == null
+                        ? "no product found with the given id : " + review.productId() : null;
+                if (reason == null) {
+                    accepted[count++] = ((long) review.productId() << 32) | i;
+                } else {
+                    failures.add(new ReviewBatchResult.Failure(i, review, reason));
+                }
+            }
+            Arrays.sort(accepted, 0, count);
+            List<ProductReview> ordered = new ArrayList<>(count);
+            for (int k = 0; k < count; k++) {
+                ordered.add(batch.get((int) accepted[k]));
+            }
+
+            if (reviewLog != null && count > 0) {
+                try {
+                    // write ahead, nothing is applied unless the whole batch is in the log
+                    sequence = reviewLog.append(ordered);
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Error logging review batch " + e.getMessage(), e);
+                    for (int k = 0; k < count; k++) {
+                        failures.add(new ReviewBatchResult.Failure((int) accepted[k], ordered.get(k),
+                                "review log failed : " + e.getMessage()));
+                    }
+                    count = 0;
+                }
+            }
+
+            int[] replaced = new int[count];
+            Product[] previous = new Product[count];
+            Product[] current = new Product[count];
+            int groups = 0;
+            for (int from = 0, to; from < count; from = to) {
+                int id = (int) (accepted[from] >> 32);
+                to = from + 1;
+                while (to < count && (int) (accepted[to] >> 32) == id) {
+                    to++;
+                }
+                previous[groups] = index.get(id);
+                current[groups] = applyReviews(id, ordered, from, to);
+                replaced[groups] = positions.get(id);
+                rated.add(current[groups]);
+                groups++;
+            }
+            int changed = groups;
+            publish(catalog -> catalog.replaceAll(replaced, current, changed));
+            for (int g = 0; g < groups; g++) {
+                queries.rate(previous[g], current[g], replaced[g]);
+            }
+            failures.sort(Comparator.comparingInt(ReviewBatchResult.Failure::index));
+        } finally {
+            writeLock.unlock(locked);
+        }
+
+        syncReviewLog(sequence);
+        if (!failures.isEmpty()) {
+            metrics.failed(Metrics.Operation.REVIEW_PRODUCTS);
+        }
+        metrics.record(Metrics.Operation.REVIEW_PRODUCTS, start);
+        return new ReviewBatchResult(count, rated, failures);
+    }
+
+    /**
+     * adds the reviews {@code from} to {@code to} of a product and rates it once, the caller holds the write lock
+     * and publishes the product
+     * @return the product with its new rating
+     */
+    private Product applyReviews(int id, List<ProductReview> batch, int from, int to) {
+        Product previous = index.get(id);
+
+        List<Review> reviews = products.get(previous);
+
+        products.remove(previous, reviews);
+
+        ReviewStats productStats = stats.get(id);
+        for (int i = from; i < to; i++) {
+            ProductReview review = batch.get(i);
+            reviews.add(new Review(review.rating(), review.comments()));
+            productStats.add(review.rating());
         }
+        productStats.setVersion(versions.incrementAndGet());
+
+        discounts.remove(previous);
+        Product p1 = previous.applyRating(productStats.getAverage());
+        discounts.add(p1);
+        reportCache.invalidate(id);
+
+        products.put(p1, reviews);
+        index.put(id, p1);
+
+        return p1;
     }
 
     public void printProductReport(int id, String languageTag, String client) {
+        long start = System.nanoTime();
         try {
-            readLock.lock();
-            printProductReport(findProduct(id),languageTag, client);
+            printProductReport(lookup(id),languageTag, client);
         }
         catch (ProductManagerException e) {
             logger.log(Level.INFO,e.getMessage());
+            metrics.failed(Metrics.Operation.PRINT_PRODUCT_REPORT);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error printing product report " + e.getMessage());
+            metrics.failed(Metrics.Operation.PRINT_PRODUCT_REPORT);
+        } finally {
+            metrics.record(Metrics.Operation.PRINT_PRODUCT_REPORT, start);
         }
-        finally {
-            readLock.unlock();
+    }
 
+
+    public void printProducts(Predicate<Product> filter, Comparator<Product> sorter, String languageTag) {
+        printProducts(ProductQuery.products().filter(filter).orderBy(sorter), languageTag);
+    }
+
+    /**
+     * finds the products matching a query, from the indexes where the query allows it
+     * <br>
+     * no lock is taken, the products come from the current catalog snapshot
+     * @param query the conditions, order and page of the products
+     * @return the matching products
+     */
+    public List<Product> findProducts(ProductQuery query) {
+        long start = System.nanoTime();
+        try {
+            return queries.select(query, snapshot).toList();
+        } finally {
+            metrics.record(Metrics.Operation.FIND_PRODUCTS, start);
         }
     }
 
+    /**
+     * finds the first k products of an order, keeping them in a bounded heap rather than sorting the catalog
+     * <br>
+     * in {@link ExecutionMode#PARALLEL PARALLEL} mode large catalogs are read in parallel chunks,
+     * the filter and the comparator are then called from several threads
+     * @param filter products to consider
+     * @param comparator order of the products, products it ranks equal come in no particular order
+     * @param k maximum number of products returned
+     * @return the first k matching products, in order
+     */
+    public List<Product> topK(Predicate<Product> filter, Comparator<Product> comparator, int k) {
+        return findProducts(ProductQuery.products().filter(filter).orderBy(comparator).limit(k));
+    }
 
-    public void printProducts(Predicate<Product> filter, Comparator<Product> sorter, String languageTag) {
+    /**
+     * prints the first k products of an order to the console, see {@link #topK(Predicate, Comparator, int)}
+     */
+    public void topK(Predicate<Product> filter, Comparator<Product> comparator, int k, String languageTag) {
+        printProducts(ProductQuery.products().filter(filter).orderBy(comparator).limit(k), languageTag);
+    }
+
+    /**
+     * prints the products matching a query to the console, each line is encoded as it is formatted
+     * rather than joined first
+     */
+    public void printProducts(ProductQuery query, String languageTag) {
+        long start = System.nanoTime();
         ResourceFormatter formatter = formatters.getOrDefault(languageTag,formatters.get("en-GB"));
-        StringBuilder txt = new StringBuilder();
 
+        // no lock, the snapshot never changes once published
+        CatalogSnapshot catalog = snapshot;
+
+        ReportWriter out = reportWriters.acquire();
         try {
-            readLock.lock();
-
-        txt.append(
-                products.keySet().stream()
-                        .sorted(sorter)
-                        .filter(filter)
-                        .map(p -> formatter.formatProduct(p) + '\n')
-                        .collect(Collectors.joining())
-                );
-        System.out.println(txt);
+            out.open(Channels.newChannel(System.out), System.out.charset());
+            Stream<Product> selected = queries.select(query, catalog);
+            for (Product product : (Iterable<Product>) selected::iterator) {
+                out.append(formatter.appendProduct(out.line(), product).append('\n'));
+            }
+            out.append(System.lineSeparator());
+            out.close();
+            System.out.flush();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error printing products " + e.getMessage(), e);
+            metrics.failed(Metrics.Operation.PRINT_PRODUCTS);
         } finally {
-            readLock.unlock();
+            reportWriters.release(out);
+            metrics.record(Metrics.Operation.PRINT_PRODUCTS, start);
         }
     }
 
+    /**
+     * @return the discounts that apply right now, totalled by rating stars and formatted for the locale
+     */
     public Map<String, String> getDiscounts(String languageTag) {
+        long start = System.nanoTime();
         ResourceFormatter formatter = formatters.getOrDefault(languageTag,formatters.get("en-GB"));
-        Map<String, String> map = null;
+        Map<String, String> map = new HashMap<>();
 
-        try {
-            readLock.lock();
-
-         map =  products.keySet()
-                .stream()
-                .collect(
-                        Collectors.groupingBy(
-                                product -> product.getRating().getStars(),
-                                Collectors.collectingAndThen(
-                                        Collectors.summingDouble(
-                                                product -> product.getDiscount().doubleValue()),
-                                                discount -> formatter.moneyformat.format(discount)
-                                        )
-                                )
-
-                        );
+        discounts.totals(LocalDate.now(), LocalTime.now()).forEach((rating, cents) ->
+                map.put(rating.getStars(), formatter.formatMoney(BigDecimal.valueOf(cents, 2))));
 
-        } finally {
-            readLock.unlock();
-        }
+        metrics.record(Metrics.Operation.GET_DISCOUNTS, start);
         return map;
     }
 
+    /**
+     * writes a snapshot of the catalog to the temp folder and removes the older ones
+     * <br>
+     * the snapshot starts a new {@link ReviewLog ReviewLog} generation, so the reviews logged so far are folded into it
+     */
     public void dumpData() {
+        long start = System.nanoTime();
         try {
             if (Files.notExists(tempFolder)) {
                 Files.createDirectories(tempFolder);
             }
             Path tempFile = tempFolder.resolve(MessageFormat.format(config.getString("temp.file"), Instant.now()));
 
-            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(tempFile, StandardOpenOption.CREATE))) {
-
-                readLock.lock();
-                out.writeObject(products);
+            if (reviewLog != null) {
+                // a snapshot of the next generation would drop the logged reviews that were never applied
+                reviewLog.checkReplayed();
+            }
 
+            long locked = locks.readAllProducts();
+            long reviewsLocked = locks.readAllReviews();
+            try {
+                int generation = reviewLog == null ? 0 : reviewLog.getGeneration() + 1;
+                SnapshotFile.write(tempFile, products, generation);
+                if (reviewLog != null) {
+                    reviewLog.reset(generation);
+                }
+            } finally {
+                locks.unlockReadAllReviews(reviewsLocked);
+                locks.unlockReadAllProducts(locked);
             }
-            finally {
-                readLock.unlock();
+
+            try (Stream<Path> files = Files.list(tempFolder)) {
+                for (Path file : (Iterable<Path>) files.filter(this::isSnapshot)::iterator) {
+                    if (!file.equals(tempFile)) {
+                        Files.delete(file);
+                    }
+                }
             }
 
         }
-        catch (IOException e) {
+        catch (Exception e) {
             logger.log(Level.SEVERE, "Error dumping data" + e.getMessage() ,e);
+            metrics.failed(Metrics.Operation.DUMP_DATA);
+        } finally {
+            metrics.record(Metrics.Operation.DUMP_DATA, start);
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * restores the latest snapshot written by {@link #dumpData() dumpData}, binary snapshots as well as
+     * serialized ones of earlier versions, then replays the reviews logged since
+     * <br>
+     * without a snapshot the data folder is loaded instead and the whole review log is replayed on it
+     * <br>
+     * with {@code restore.mapped} binary snapshots are memory mapped and the reviews of a product are only
+     * decoded when a report or a review first needs them
+     */
     public void restoreData() {
+        long start = System.nanoTime();
         try {
-            Path tempFile = Files.list(tempFolder)
-                    .filter(path -> path.getFileName().toString().endsWith("temp"))
-                    .findFirst()
-                    .orElseThrow();
-
-            try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(tempFile, StandardOpenOption.DELETE_ON_CLOSE))) {
-                writeLock.lock();
-
-                products = (HashMap) in.readObject();
+            // the restored lists are created in a new arena, the old one goes with the catalog being replaced
+            arena = new CommentArena();
+            Path tempFile = latestSnapshot();
+            Map<Product, List<Review>> restored;
+            int generation;
+            if (tempFile == null) {
+                logger.log(Level.INFO, "No snapshot in " + tempFolder + ", loading the data folder");
+                restored = readDataFolder();
+                generation = ReviewLog.NO_SNAPSHOT;
+            } else {
+                restored = new ConcurrentHashMap<>(SnapshotFile.read(tempFile, restoreMapped));
+                generation = SnapshotFile.logGeneration(tempFile);
+            }
 
+            long locked = writeLock.lock();
+            try {
+                products = restored;
+                reindex();
+                if (reviewLog != null) {
+                    int replayed = reviewLog.replay(generation, this::replayReview);
+                    logger.log(Level.INFO, "Replayed " + replayed + " logged reviews");
+                }
             }
             finally {
-                writeLock.unlock();
-
+                writeLock.unlock(locked);
             }
         }
         catch (Exception ex) {
             logger.log(Level.SEVERE, "Error restoring data "+ ex.getMessage(), ex);
+            metrics.failed(Metrics.Operation.RESTORE_DATA);
+        } finally {
+            metrics.record(Metrics.Operation.RESTORE_DATA, start);
+        }
+    }
+
+    /**
+     * writes the whole catalog to the {@code catalog.data.file} of the data folder, which
+     * {@link #loadAllProducts() loadAllProducts} then reads instead of the product and reviews files
+     */
+    public void exportData() {
+        long start = System.nanoTime();
+        ReportWriter out = reportWriters.acquire();
+        try {
+            if (Files.notExists(dataFolder)) {
+                Files.createDirectories(dataFolder);
+            }
+            long locked = locks.readAllProducts();
+            long reviewsLocked = locks.readAllReviews();
+            try {
+                long size = CatalogFile.write(catalogFile(), products, this, out);
+                logger.log(Level.INFO, "Exported " + products.size() + " products to " + catalogFile()
+                        + " (" + size + " bytes)");
+            } finally {
+                locks.unlockReadAllReviews(reviewsLocked);
+                locks.unlockReadAllProducts(locked);
+            }
+        }
+        catch (IOException e) {
+            logger.log(Level.SEVERE, "Error exporting data " + e.getMessage(), e);
+            metrics.failed(Metrics.Operation.EXPORT_DATA);
+        } finally {
+            reportWriters.release(out);
+            metrics.record(Metrics.Operation.EXPORT_DATA, start);
+        }
+    }
+
+    private Path catalogFile() {
+        return dataFolder.resolve(config.getString("catalog.data.file").trim());
+    }
+
+    private boolean isSnapshot(Path file) {
+        return file.getFileName().toString().endsWith("temp");
+    }
+
+    /**
+     * @return the newest snapshot of the temp folder, null when there is none
+     */
+    private Path latestSnapshot() throws IOException {
+        if (Files.notExists(tempFolder)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(tempFolder)) {
+            // snapshot names start with their timestamp
+            return files
+                    .filter(this::isSnapshot)
+                    .max(Comparator.comparing(path -> path.getFileName().toString()))
+                    .orElse(null);
+        }
+    }
+
+    private RecordParser createRecordParser() {
+        try {
+            return new RecordParser(config.getString("product.data.format"), config.getString("review.data.format"));
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.INFO, "Parsing data with MessageFormat, " + e.getMessage());
+            return null;
         }
     }
 
     public Review parseReview(String text) {
+        long start = System.nanoTime();
         try {
-            Object[] values = reviewFormat.parse(text);
+            if (recordParser != null) {
+                return recordParser.parseReview(text);
+            }
+
+            MessageFormat format = reviewFormat.acquire();
+            Object[] values;
+            try {
+                values = format.parse(text);
+            } finally {
+                reviewFormat.release(format);
+            }
 
             return new Review(Reteable.convert(Integer.parseInt((String) values[0])),(String)values[1]);
         }
         catch (ParseException| NumberFormatException e) {
             logger.log(Level.WARNING, "Error parsing review : "+ text + " " + e.getMessage());
+            metrics.failed(Metrics.Operation.PARSE_REVIEW);
+            metrics.reviewParseFailed();
 
             return null;
+        } finally {
+            metrics.record(Metrics.Operation.PARSE_REVIEW, start);
         }
     }
 
     public Product parseProduct(String text) throws ProductManagerException {
+        long start = System.nanoTime();
         Product product = null;
         try {
-            Object[] values = productFormat.parse(text);
+            product = readProduct(text);
+        } finally {
+            if (product == null) {
+                metrics.failed(Metrics.Operation.PARSE_PRODUCT);
+            }
+            metrics.record(Metrics.Operation.PARSE_PRODUCT, start);
+        }
+        if (product != null) {
+            long locked = writeLock.lock();
+            try {
+                addProduct(product);
+            } finally {
+                writeLock.unlock(locked);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * formats a product as a {@code product.data.format} record, which {@link #readProduct(String) readProduct} reads
+     */
+    String formatProduct(Product product) {
+        String bestBefore = product instanceof Food ? product.getBestBefore().toString() : "";
+        Object[] values = {product instanceof Food ? "F" : "D",
+                Integer.toString(product.getId()), product.getName(), product.getPrice().toPlainString(),
+                Integer.toString(product.getRating().ordinal()), bestBefore};
+        MessageFormat format = productFormat.acquire();
+        try {
+            return format.format(values);
+        } finally {
+            productFormat.release(format);
+        }
+    }
 
-            int id = Integer.parseInt((String) values[1]);
-            String name = (String) values[2];
-            BigDecimal price = BigDecimal.valueOf(Double.parseDouble((String) values[3]));
-            Rating rating = Reteable.convert(Integer.parseInt((String) values[4]));
+    /**
+     * formats a review as a {@code review.data.format} record, which {@link #parseReview(String) parseReview} reads
+     */
+    String formatReview(Review review) {
+        return formatReview(review.getRating(), review.getComments());
+    }
 
-            switch ((String) values[0]) {
-                case "F":
-                    LocalDate bestBefore = LocalDate.parse((String) values[5]);
-                    product = createProduct(id,name,price,rating,bestBefore);
-                    break;
-                case "D":
-                    product = createProduct(id,name,price,rating);
-                    break;
+    String formatReview(Rating rating, String comments) {
+        Object[] values = {Integer.toString(rating.ordinal()), comments};
+        MessageFormat format = reviewFormat.acquire();
+        try {
+            return format.format(values);
+        } finally {
+            reviewFormat.release(format);
+        }
+    }
 
+    /**
+     * parses a product without adding it to the catalog
+     * @return the product, null for an unknown product type
+     */
+    Product readProduct(String text) throws ProductManagerException {
+        Product product = null;
+        try {
+            if (recordParser != null) {
+                product = recordParser.parseProduct(text);
+            } else {
+                MessageFormat format = productFormat.acquire();
+                Object[] values;
+                try {
+                    values = format.parse(text);
+                } finally {
+                    productFormat.release(format);
+                }
+
+                int id = Integer.parseInt((String) values[1]);
+                String name = (String) values[2];
+                BigDecimal price = BigDecimal.valueOf(Double.parseDouble((String) values[3]));
+                Rating rating = Reteable.convert(Integer.parseInt((String) values[4]));
+
+                switch ((String) values[0]) {
+                    case "F":
+                        LocalDate bestBefore = LocalDate.parse((String) values[5]);
+                        product = new Food(id,name,price,rating,bestBefore);
+                        break;
+                    case "D":
+                        product = new Drink(id,name,price,rating);
+                        break;
+
+                }
             }
 
         }
         catch (ParseException | NumberFormatException | DateTimeParseException e) {
             logger.log(Level.WARNING, "Error parsing review : "+ text + " " + e.getMessage());
+            metrics.productParseFailed();
 
             throw new ProductManagerException("Unable to parse review",e);
         }
+        catch (ArithmeticException e) {
+            // prices are kept as a long of minor units, see Product
+            logger.log(Level.WARNING, "Error parsing product : " + text + " " + e.getMessage());
+            metrics.productParseFailed();
+            throw new ProductManagerException("Unable to parse product, " + e.getMessage(), e);
+        }
+        if (product == null) {
+            metrics.productParseFailed();
+        }
         return product;
     }
-    private Product loadProduct(Path file) {
+
+    /**
+     * reads a product file, the product is not added to the catalog
+     * @return the product or null when the file cannot be read or parsed
+     */
+    Product loadProduct(Path file) {
         Product product = null;
-        try {
-            readLock.lock();
-            product = parseProduct(Files.lines(dataFolder.resolve(file),Charset.forName("UTF-8"))
-                    .findFirst().orElseThrow());
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text = in.readLine();
+            if (text == null) {
+                throw new ProductManagerException("empty product file " + file);
+            }
+            product = readProduct(text);
         } catch (IOException | ProductManagerException e) {
             logger.log(Level.WARNING, "Error loading Product "+ e.getMessage());
-        } finally {
-            readLock.unlock();
         }
         return product;
     }
+
+    /**
+     * loads the {@code catalog.data.file} of the data folder when there is one, else its product and reviews files
+     */
     private void loadAllProducts() {
+        long start = System.nanoTime();
         try {
-            products = Files.list(dataFolder)
-                    .filter(file -> file.getFileName().toString().startsWith("product"))
-                    .map(this::loadProduct)
-                    .filter(product -> product != null)
-                    .collect(Collectors.toMap(product -> product, product -> loadReviews(product)));
-
+            Map<Product, List<Review>> loaded = readDataFolder();
+            long locked = writeLock.lock();
+            try {
+                products = loaded;
+                reindex();
+            } finally {
+                writeLock.unlock(locked);
+            }
         }
         catch (IOException e) {
             logger.log(Level.SEVERE, "Error loading Data "+ e.getMessage());
+            metrics.failed(Metrics.Operation.LOAD_ALL_PRODUCTS);
+        } finally {
+            metrics.record(Metrics.Operation.LOAD_ALL_PRODUCTS, start);
         }
 
     }
-    private List<Review> loadReviews(Product product) {
-        Path file = dataFolder.resolve(MessageFormat.format(config.getString("reviews.data.file"),product.getId()));
-
-        List<Review> reviews = null;
+    /**
+     * @return the products of the data folder as {@link #loadAllProducts() loadAllProducts} finds them
+     */
+    private Map<Product, List<Review>> readDataFolder() throws IOException {
+        long start = System.nanoTime();
+        Path catalogFile = catalogFile();
+        if (Files.notExists(catalogFile)) {
+            return new ProductLoader(this, loaderParallelism).load(dataFolder);
+        }
+        Map<Product, List<Review>> loaded = CatalogFile.read(catalogFile, this);
+        logger.log(Level.INFO, "Loaded " + loaded.size() + " products from " + catalogFile + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return loaded;
+    }
 
-        if (Files.notExists(file)) {
-            reviews = new ArrayList<>();
+    /**
+     * rebuilds the id index and the review aggregates after {@link #products products} has been replaced as a whole
+     */
+    private void reindex() {
+        reportCache.clear();
+        // snapshots hold heap lists, serialized ones of earlier versions plain lists
+        products.replaceAll((product, reviews) -> {
+            if (isStored(reviews)) {
+                return reviews;
+            }
+            List<Review> stored = newReviews();
+            stored.addAll(reviews);
+            return stored;
+        });
+        index.clear();
+        stats.clear();
+        positions.clear();
+        discounts.clear();
+        // the aggregates are computed in parallel on large catalogs, the indexes themselves are not thread safe
+        Map<Integer, ReviewStats> counted = executor.run(products.entrySet().stream(), products.size(),
+                entries -> entries.collect(Collectors.toConcurrentMap(entry -> entry.getKey().getId(),
+                        entry -> ReviewStats.of(entry.getValue()))));
+        discounts.addAll(executor.run(products.keySet().stream(), products.size(),
+                catalog -> catalog.collect(Collectors.groupingByConcurrent(DiscountTotals.Slot::of,
+                        Collectors.summarizingLong(Product::getDiscountCents)))));
+        // reports rendered before the reload must not match any product afterwards
+        long version = versions.incrementAndGet();
+        products.keySet().forEach(product -> {
+            index.put(product.getId(), product);
+            ReviewStats productStats = counted.get(product.getId());
+            productStats.setVersion(version);
+            stats.put(product.getId(), productStats);
+        });
+        publish(catalog -> CatalogSnapshot.of(products.keySet(), catalog.getVersion() + 1));
+        queries.clear();
+        CatalogSnapshot catalog = snapshot;
+        for (int position = 0; position < catalog.size(); position++) {
+            positions.put(catalog.get(position).getId(), position);
+            queries.add(catalog.get(position), position);
         }
-        else {
-            try {
-                readLock.lock();
+    }
 
-                reviews = Files.lines(file, Charset.forName("UTF-8"))
-                        .map(text -> parseReview(text))
-                        .filter(review -> review != null)
-                        .collect(Collectors.toList());
+    /**
+     * reads the reviews file of a product from a data folder
+     * @return the reviews, an empty list when the product has no reviews file
+     */
+    List<Review> loadReviews(Product product, Path folder) {
+        Path file = folder.resolve(MessageFormat.format(config.getString("reviews.data.file"),product.getId()));
+
+        List<Review> reviews = newReviews();
+
+        if (Files.exists(file)) {
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String text;
+                while ((text = in.readLine()) != null) {
+                    Review review = parseReview(text);
+                    if (review != null) {
+                        reviews.add(review);
+                    }
+                }
             } catch (IOException e) {
                 logger.log(Level.WARNING, "Error loading reviews " + e.getMessage());
-            } finally {
-                readLock.unlock();
-
             }
-
-
         }
 
         return reviews;
-
-
-
-
     }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * {@code ProductQuery} describes which products {@link ProductManager#findProducts(ProductQuery) findProducts}
+ * returns and in which order
+ * <br>
+ * rating, price and best before ranges are answered from indexes, any other condition is a {@link Predicate Predicate}
+ * checked on the products the indexes selected. ordering by {@link #BY_PRICE BY_PRICE} or
+ * {@link #BY_RATING_THEN_PRICE BY_RATING_THEN_PRICE} reads the indexes in order, so a query with a
+ * {@link #limit(int) limit} stops after the products it returns, any other order with a limit only keeps
+ * the page in a bounded heap instead of sorting every matching product.
+ * e.g. {@code products().minRating(Rating.THREE_STAR).orderBy(BY_RATING_THEN_PRICE).limit(50)}
+ * <br>
+ * ranges include their bounds
+ * @version 4.0
+ * @author amz
+ **/
+public final class ProductQuery {
+
+    /**
+     * a price bound in the units and scale {@link Product Product} keeps its price in
+     */
+    record Price(long units, int scale) {
+
+        static Price of(BigDecimal price) {
+            return price == null ? null : new Price(price.unscaledValue().longValueExact(), price.scale());
+        }
+
+        int compareTo(Product product) {
+            return Product.comparePrices(units, scale, product.getPriceUnits(), product.getPriceScale());
+        }
+    }
+
+    /**
+     * cheapest first
+     */
+    public static final Comparator<Product> BY_PRICE = Product.PRICE_ORDER;
+
+    /**
+     * best rated first, then cheapest first
+     */
+    public static final Comparator<Product> BY_RATING_THEN_PRICE =
+            Comparator.comparing(Product::getRating, Comparator.reverseOrder()).thenComparing(Product.PRICE_ORDER);
+
+    private Rating minRating = Rating.NOT_RATED;
+    private Rating maxRating = Rating.FIVE_STAR;
+    private Price minPrice;
+    private Price maxPrice;
+    private LocalDate bestBeforeFrom;
+    private LocalDate bestBeforeTo;
+    private Predicate<Product> filter;
+    private Comparator<Product> order;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    private ProductQuery() {
+    }
+
+    /**
+     * @return a query for every product, in no particular order
+     */
+    public static ProductQuery products() {
+        return new ProductQuery();
+    }
+
+    public ProductQuery minRating(Rating rating) {
+        this.minRating = rating;
+        return this;
+    }
+
+    public ProductQuery maxRating(Rating rating) {
+        this.maxRating = rating;
+        return this;
+    }
+
+    /**
+     * @param min lowest price, null for no lower bound
+     * @param max highest price, null for no upper bound
+     * @throws ArithmeticException when a bound has more digits than a product price can have
+     */
+    public ProductQuery price(BigDecimal min, BigDecimal max) {
+        this.minPrice = Price.of(min);
+        this.maxPrice = Price.of(max);
+        return this;
+    }
+
+    /**
+     * restricts the query to {@link Food food} best before the given days
+     * @param from first day, null for no lower bound
+     * @param to last day, null for no upper bound
+     */
+    public ProductQuery bestBefore(LocalDate from, LocalDate to) {
+        this.bestBeforeFrom = from;
+        this.bestBeforeTo = to;
+        return this;
+    }
+
+    /**
+     * adds a condition no index can answer, several filters must all match
+     */
+    public ProductQuery filter(Predicate<Product> filter) {
+        this.filter = this.filter == null ? filter : this.filter.and(filter);
+        return this;
+    }
+
+    /**
+     * @param order order of the products, products it ranks equal come in no particular order
+     */
+    public ProductQuery orderBy(Comparator<Product> order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * @param offset number of matching products to skip
+     */
+    public ProductQuery offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("negative offset " + offset);
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @param limit maximum number of products returned
+     */
+    public ProductQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("negative limit " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    Rating getMinRating() {
+        return minRating;
+    }
+
+    Rating getMaxRating() {
+        return maxRating;
+    }
+
+    Price getMinPrice() {
+        return minPrice;
+    }
+
+    Price getMaxPrice() {
+        return maxPrice;
+    }
+
+    boolean hasRatingRange() {
+        return minRating != Rating.NOT_RATED || maxRating != Rating.FIVE_STAR;
+    }
+
+    boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    boolean hasBestBeforeRange() {
+        return bestBeforeFrom != null || bestBeforeTo != null;
+    }
+
+    LocalDate getBestBeforeFrom() {
+        return bestBeforeFrom;
+    }
+
+    LocalDate getBestBeforeTo() {
+        return bestBeforeTo;
+    }
+
+    Comparator<Product> getOrder() {
+        return order;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return whether the product matches every condition of the query
+     */
+    boolean test(Product product) {
+        int rating = product.getRating().ordinal();
+        if (rating < minRating.ordinal() || rating > maxRating.ordinal()) {
+            return false;
+        }
+        if (minPrice != null && minPrice.compareTo(product) > 0
+                || maxPrice != null && maxPrice.compareTo(product) < 0) {
+            return false;
+        }
+        if (hasBestBeforeRange()) {
+            if (!(product instanceof Food)) {
+                return false;
+            }
+            LocalDate bestBefore = product.getBestBefore();
+            if (bestBeforeFrom != null && bestBefore.isBefore(bestBeforeFrom)
+                    || bestBeforeTo != null && bestBefore.isAfter(bestBeforeTo)) {
+                return false;
+            }
+        }
+        return filter == null || filter.test(product);
+    }
+}
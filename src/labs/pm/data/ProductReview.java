@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+/**
+ * {@code ProductReview} is one review of a {@link ProductManager#reviewProducts(java.util.List) batch}
+ * @param productId id of the reviewed product
+ * @version 4.0
+ * @author amz
+ **/
+public record ProductReview(int productId, Rating rating, String comments) {
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@code QueryIndex} holds the secondary indexes {@link ProductQuery ProductQuery} is answered from
+ * <br>
+ * a price ordered set per {@link Rating Rating}, a price ordered set of every product and a best before ordered
+ * set of {@link Food food}. entries only hold what never changes about a product, and its position in the
+ * {@link CatalogSnapshot CatalogSnapshot}, the product itself is read from the snapshot.
+ * <br>
+ * the sets are concurrent, queries read them without locks while writers keep them up to date under the
+ * {@link ProductManager} locks. like the iterators of the concurrent collections, a query running while a
+ * product is rated may miss that product, it never returns it twice nor with a rating it does not have
+ * in the snapshot
+ * @version 4.0
+ * @author amz
+ **/
+class QueryIndex {
+
+    private static final Rating[] RATINGS = Rating.values();
+
+    /**
+     * pages ending further than this are sorted rather than kept in a heap
+     */
+    private static final int MAX_TOP = 1 << 20;
+
+    private record Entry(int id, int position, long priceUnits, int priceScale, long bestBefore) {
+    }
+
+    private static final Comparator<Entry> PRICE_ORDER = (e1, e2) -> {
+        int order = Product.comparePrices(e1.priceUnits, e1.priceScale, e2.priceUnits, e2.priceScale);
+        return order != 0 ? order : Integer.compare(e1.id, e2.id);
+    };
+
+    private static final Comparator<Entry> BEST_BEFORE_ORDER = (e1, e2) -> {
+        int order = Long.compare(e1.bestBefore, e2.bestBefore);
+        return order != 0 ? order : Integer.compare(e1.id, e2.id);
+    };
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final NavigableSet<Entry>[] byRating = new NavigableSet[RATINGS.length];
+    private final NavigableSet<Entry> byPrice = new ConcurrentSkipListSet<>(PRICE_ORDER);
+    private final NavigableSet<Entry> byBestBefore = new ConcurrentSkipListSet<>(BEST_BEFORE_ORDER);
+
+    private final CatalogExecutor executor;
+
+    /**
+     * @param executor runs the ordering of large catalogs in parallel chunks
+     */
+    QueryIndex(CatalogExecutor executor) {
+        this.executor = executor;
+        for (int rating = 0; rating < RATINGS.length; rating++) {
+            byRating[rating] = new ConcurrentSkipListSet<>(PRICE_ORDER);
+        }
+    }
+
+    /**
+     * @param position position of the product in the catalog snapshot
+     */
+    void add(Product product, int position) {
+        Entry entry = entry(product, position);
+        byPrice.add(entry);
+        if (product instanceof Food && product.getBestBefore() != null) {
+            byBestBefore.add(entry);
+        }
+        byRating[product.getRating().ordinal()].add(entry);
+    }
+
+    /**
+     * moves a product to the bucket of its new rating, the rated product is already in the snapshot
+     */
+    void rate(Product product, Product rated, int position) {
+        if (product.getRating() != rated.getRating()) {
+            Entry entry = entry(rated, position);
+            byRating[rated.getRating().ordinal()].add(entry);
+            byRating[product.getRating().ordinal()].remove(entry);
+        }
+    }
+
+    void clear() {
+        byPrice.clear();
+        byBestBefore.clear();
+        for (NavigableSet<Entry> bucket : byRating) {
+            bucket.clear();
+        }
+    }
+
+    /**
+     * @return the products of the catalog matching the query, in its order, from its offset up to its limit
+     */
+    Stream<Product> select(ProductQuery query, CatalogSnapshot catalog) {
+        Comparator<Product> order = query.getOrder();
+        Stream<Product> products;
+        if (order == ProductQuery.BY_RATING_THEN_PRICE && !query.hasBestBeforeRange()) {
+            // the rating buckets are price ordered, best one first is the query order
+            products = byRating(query, catalog, true);
+            order = null;
+        } else if (order == ProductQuery.BY_PRICE && !query.hasBestBeforeRange()) {
+            products = resolve(byPrice(byPrice, query), catalog).filter(query::test);
+            order = null;
+        } else if (query.hasBestBeforeRange()) {
+            products = resolve(byBestBefore(query), catalog).filter(query::test);
+        } else if (query.hasPriceRange()) {
+            products = resolve(byPrice(byPrice, query), catalog).filter(query::test);
+        } else if (query.hasRatingRange()) {
+            products = byRating(query, catalog, false);
+        } else {
+            products = catalog.stream().filter(query::test);
+        }
+
+        if (order != null) {
+            long kept = (long) query.getOffset() + query.getLimit();
+            Comparator<Product> sorter = order;
+            List<Product> ordered = kept > MAX_TOP
+                    ? executor.run(products, catalog.size(), selected -> selected.sorted(sorter).toList())
+                    // only the page is kept, in a bounded heap per chunk when the catalog is split
+                    : executor.run(products, catalog.size(),
+                            selected -> selected.collect(TopK.collector(sorter, (int) kept)));
+            products = ordered.stream();
+        }
+        if (query.getOffset() > 0) {
+            products = products.skip(query.getOffset());
+        }
+        if (query.getLimit() < Integer.MAX_VALUE) {
+            products = products.limit(query.getLimit());
+        }
+        return products;
+    }
+
+    /**
+     * reads the rating buckets of the query range, each price ordered
+     * @param bestFirst whether to read the best rating first
+     */
+    private Stream<Product> byRating(ProductQuery query, CatalogSnapshot catalog, boolean bestFirst) {
+        int min = query.getMinRating().ordinal();
+        int max = query.getMaxRating().ordinal();
+        IntStream ratings = IntStream.rangeClosed(min, max);
+        if (bestFirst) {
+            ratings = ratings.map(rating -> min + max - rating);
+        }
+        return ratings.boxed().flatMap(rating ->
+                resolve(byPrice(byRating[rating], query), catalog)
+                        // a product being rated is briefly in two buckets, the snapshot tells which one is right
+                        .filter(product -> product.getRating().ordinal() == rating)
+                        .filter(query::test));
+    }
+
+    private static NavigableSet<Entry> byPrice(NavigableSet<Entry> entries, ProductQuery query) {
+        ProductQuery.Price min = query.getMinPrice();
+        ProductQuery.Price max = query.getMaxPrice();
+        if (min != null && max != null && Product.comparePrices(min.units(), min.scale(), max.units(), max.scale()) > 0) {
+            return Collections.emptyNavigableSet();
+        }
+        if (min != null) {
+            entries = entries.tailSet(new Entry(Integer.MIN_VALUE, 0, min.units(), min.scale(), 0), true);
+        }
+        if (max != null) {
+            entries = entries.headSet(new Entry(Integer.MAX_VALUE, 0, max.units(), max.scale(), 0), true);
+        }
+        return entries;
+    }
+
+    private NavigableSet<Entry> byBestBefore(ProductQuery query) {
+        NavigableSet<Entry> entries = byBestBefore;
+        LocalDate from = query.getBestBeforeFrom();
+        LocalDate to = query.getBestBeforeTo();
+        if (from != null && to != null && from.isAfter(to)) {
+            return Collections.emptyNavigableSet();
+        }
+        if (from != null) {
+            entries = entries.tailSet(new Entry(Integer.MIN_VALUE, 0, 0, 0, from.toEpochDay()), true);
+        }
+        if (to != null) {
+            entries = entries.headSet(new Entry(Integer.MAX_VALUE, 0, 0, 0, to.toEpochDay()), true);
+        }
+        return entries;
+    }
+
+    /**
+     * reads the products of the entries from the snapshot, skipping entries the snapshot does not have yet
+     * or any more
+     */
+    private static Stream<Product> resolve(NavigableSet<Entry> entries, CatalogSnapshot catalog) {
+        return entries.stream()
+                .map(entry -> {
+                    if (entry.position >= catalog.size()) {
+                        return null;
+                    }
+                    Product product = catalog.get(entry.position);
+                    return product.getId() == entry.id ? product : null;
+                })
+                .filter(Objects::nonNull);
+    }
+
+    private static Entry entry(Product product, int position) {
+        return new Entry(product.getId(), position, product.getPriceUnits(), product.getPriceScale(),
+                product instanceof Food && product.getBestBefore() != null ? product.getBestBefore().toEpochDay() : 0);
+    }
+}
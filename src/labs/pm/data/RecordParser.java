@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * {@code RecordParser} parses product and review records without {@link java.text.MessageFormat MessageFormat}
+ * <br>
+ * it works over any {@link CharSequence CharSequence}, e.g. a {@code String} or a {@code CharBuffer}
+ * wrapping a {@code char[]}, and reads numeric fields in place instead of copying them into Strings.
+ * <br>
+ * results and failures match the {@code MessageFormat} based parsing of {@link ProductManager ProductManager}:
+ * a missing delimiter is a {@link ParseException ParseException}, bad numbers and dates throw
+ * {@link NumberFormatException NumberFormatException} and {@link java.time.format.DateTimeParseException DateTimeParseException}.
+ * it only supports patterns of consecutive arguments separated by one literal delimiter, such as {@code {0}, {1}}
+ * @version 4.0
+ * @author amz
+ **/
+public class RecordParser {
+
+    private static final int PRODUCT_FIELDS = 6;
+    private static final int REVIEW_FIELDS = 2;
+
+    /**
+     * {@link Double#toString(double) Double.toString} keeps every digit of decimals up to this length
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private final String productDelimiter;
+    private final String reviewDelimiter;
+
+    /**
+     * @param productPattern the {@code product.data.format} pattern
+     * @param reviewPattern the {@code review.data.format} pattern
+     * @throws IllegalArgumentException when a pattern is not a plain delimited list of arguments
+     */
+    public RecordParser(String productPattern, String reviewPattern) {
+        this.productDelimiter = delimiter(productPattern, PRODUCT_FIELDS);
+        this.reviewDelimiter = delimiter(reviewPattern, REVIEW_FIELDS);
+    }
+
+    /**
+     * @return the product, null for an unknown product type
+     */
+    public Product parseProduct(CharSequence text) throws ParseException {
+        int length = productDelimiter.length();
+
+        // find every field first, a missing delimiter fails before any number is read
+        int type = 0;
+        int id = find(text, productDelimiter, type) + length;
+        int name = find(text, productDelimiter, id) + length;
+        int price = find(text, productDelimiter, name) + length;
+        int rating = find(text, productDelimiter, price) + length;
+        int bestBefore = find(text, productDelimiter, rating) + length;
+
+        int productId = Integer.parseInt(text, id, name - length, 10);
+        String productName = text.subSequence(name, price - length).toString();
+        BigDecimal productPrice = parsePrice(text, price, rating - length);
+        Rating productRating = Reteable.convert(Integer.parseInt(text, rating, bestBefore - length, 10));
+
+        if (id - length == type + 1) {
+            switch (text.charAt(type)) {
+                case 'F':
+                    return new Food(productId, productName, productPrice, productRating,
+                            parseDate(text, bestBefore, text.length()));
+                case 'D':
+                    return new Drink(productId, productName, productPrice, productRating);
+            }
+        }
+        return null;
+    }
+
+    public Review parseReview(CharSequence text) throws ParseException {
+        int comments = find(text, reviewDelimiter, 0);
+        Rating rating = Reteable.convert(Integer.parseInt(text, 0, comments, 10));
+        return new Review(rating, text.subSequence(comments + reviewDelimiter.length(), text.length()).toString());
+    }
+
+    /**
+     * same value and scale as {@code BigDecimal.valueOf(Double.parseDouble(text))}, which goes through
+     * {@link Double#toString(double) Double.toString}: trailing zeros dropped but at least one decimal.
+     * anything other than a short plain decimal between 0.001 and 10 000 000 takes that slower route
+     */
+    static BigDecimal parsePrice(CharSequence text, int begin, int end) {
+        int i = begin;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (unscaled != 0 || c != '0') {
+                    if (++digits > MAX_FAST_DIGITS) {
+                        return parsePriceSlow(text, begin, end);
+                    }
+                    unscaled = unscaled * 10 + (c - '0');
+                }
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return parsePriceSlow(text, begin, end);
+            }
+        }
+        if (!any) {
+            return parsePriceSlow(text, begin, end);
+        }
+        if (unscaled == 0) {
+            return BigDecimal.valueOf(0, 1);
+        }
+        // Double.toString switches to scientific notation outside of [0.001, 10 000 000)
+        int magnitude = digits - scale;
+        if (magnitude > 7 || magnitude < -2) {
+            return parsePriceSlow(text, begin, end);
+        }
+        while (scale > 1 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        if (scale == 0) {
+            unscaled *= 10;
+            scale = 1;
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static BigDecimal parsePriceSlow(CharSequence text, int begin, int end) {
+        return BigDecimal.valueOf(Double.parseDouble(text.subSequence(begin, end).toString()));
+    }
+
+    /**
+     * reads {@code yyyy-MM-dd} in place, other shapes and invalid dates go through {@link LocalDate#parse LocalDate.parse}
+     * so they fail the same way
+     */
+    static LocalDate parseDate(CharSequence text, int begin, int end) {
+        if (end - begin == 10 && text.charAt(begin + 4) == '-' && text.charAt(begin + 7) == '-') {
+            int year = digits(text, begin, begin + 4);
+            int month = digits(text, begin + 5, begin + 7);
+            int day = digits(text, begin + 8, end);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (DateTimeException e) {
+                    // fall through to report it as LocalDate.parse does
+                }
+            }
+        }
+        return LocalDate.parse(text.subSequence(begin, end));
+    }
+
+    /**
+     * @return the ASCII digits as a number, -1 when another character is found
+     */
+    private static int digits(CharSequence text, int begin, int end) {
+        int value = 0;
+        for (int i = begin; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int find(CharSequence text, String delimiter, int from) throws ParseException {
+        int found;
+        if (text instanceof String string) {
+            found = string.indexOf(delimiter, from);
+        } else {
+            found = -1;
+            int last = text.length() - delimiter.length();
+            search:
+            for (int i = from; i <= last; i++) {
+                for (int j = 0; j < delimiter.length(); j++) {
+                    if (text.charAt(i + j) != delimiter.charAt(j)) {
+                        continue search;
+                    }
+                }
+                found = i;
+                break;
+            }
+        }
+        if (found < 0) {
+            throw new ParseException("Missing delimiter \"" + delimiter + "\"", from);
+        }
+        return found;
+    }
+
+    /**
+     * @return the literal between the arguments of a pattern such as {@code {0}, {1}, {2}}
+     */
+    private static String delimiter(String pattern, int fields) {
+        String first = "{0}";
+        String second = "{1}";
+        if (!pattern.startsWith(first) || pattern.indexOf(second) < 0) {
+            throw new IllegalArgumentException("unsupported record pattern " + pattern);
+        }
+        String delimiter = pattern.substring(first.length(), pattern.indexOf(second));
+        StringBuilder expected = new StringBuilder(first);
+        for (int i = 1; i < fields; i++) {
+            expected.append(delimiter).append('{').append(i).append('}');
+        }
+        if (delimiter.isEmpty() || delimiter.indexOf('\'') >= 0 || delimiter.indexOf('{') >= 0
+                || !expected.toString().equals(pattern)) {
+            throw new IllegalArgumentException("unsupported record pattern " + pattern);
+        }
+        return delimiter;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@code ReportCache} keeps the encoded bytes of recently rendered product reports, least recently used first out
+ * <br>
+ * a report is looked up by product id, language tag and data version. the version of a product only increases,
+ * every change of its reviews and every reload of the catalog gives it a new one, see {@link ReviewStats#getVersion()}.
+ * a report rendered from reviews that changed meanwhile is therefore never served,
+ * even if it was stored after {@link #invalidate(int) invalidate} ran.
+ * <br>
+ * hits, misses and evictions are counted for monitoring
+ * @version 4.0
+ * @author amz
+ **/
+public class ReportCache {
+
+    private record Key(int id, String languageTag) {
+    }
+
+    private record Entry(long version, byte[] report) {
+    }
+
+    private final int capacity;
+    private final List<String> languageTags;
+    private final Lock lock = new ReentrantLock();
+    private final Map<Key, Entry> reports;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity maximum number of reports kept, 0 disables the cache
+     * @param languageTags every language tag a report can be rendered in
+     */
+    ReportCache(int capacity, Collection<String> languageTags) {
+        this.capacity = capacity;
+        this.languageTags = List.copyOf(languageTags);
+        this.reports = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ReportCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the report bytes, null when the report is not cached for this version
+     */
+    byte[] get(int id, String languageTag, long version) {
+        Entry entry;
+        lock.lock();
+        try {
+            entry = reports.get(new Key(id, languageTag));
+        } finally {
+            lock.unlock();
+        }
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.report();
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(int id, String languageTag, long version, byte[] report) {
+        if (capacity == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            Key key = new Key(id, languageTag);
+            Entry current = reports.get(key);
+            // a slower writer must not replace a report rendered from newer reviews
+            if (current == null || current.version() <= version) {
+                reports.put(key, new Entry(version, report));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * drops the reports of a product in every language
+     */
+    void invalidate(int id) {
+        lock.lock();
+        try {
+            for (String languageTag : languageTags) {
+                reports.remove(new Key(id, languageTag));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            reports.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return reports.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
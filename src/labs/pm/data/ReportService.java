@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@code ReportService} writes product reports on a dedicated pool of writer threads
+ * <br>
+ * the caller only copies the reviews under a short product lock, formatting and file output happen on the pool.
+ * reports found in the {@link ReportCache ReportCache} skip the copy and the formatting.
+ * at most {@code queueCapacity} reports wait for a writer, further callers block until a slot frees up.
+ * <br>
+ * queue depth and write latency are exposed for monitoring
+ * @version 4.0
+ * @author amz
+ **/
+public class ReportService {
+
+    private static final Logger logger = Logger.getLogger(ReportService.class.getName());
+
+    private final ProductManager productManager;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+
+    ReportService(ProductManager productManager, int threads, int queueCapacity) {
+        this.productManager = productManager;
+        this.slots = new Semaphore(threads + queueCapacity);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                task -> {
+                    Thread thread = new Thread(task, "report-writer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * snapshots the product and its reviews and queues the report, blocks while the queue is full
+     * @return completes with the report file once it has been written
+     */
+    public CompletableFuture<Path> submit(int id, String languageTag, String client) {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        try {
+            Product product = productManager.findProduct(id);
+            byte[] report = productManager.cachedReport(product, languageTag);
+            ProductManager.VersionedReviews reviews = report == null ? productManager.reviewsOf(product) : null;
+
+            slots.acquire();
+            try {
+                executor.execute(() -> write(product, report, reviews, languageTag, client, result));
+            } catch (RejectedExecutionException e) {
+                slots.release();
+                throw e;
+            }
+        } catch (ProductManagerException | RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void write(Product product, byte[] report, ProductManager.VersionedReviews reviews, String languageTag,
+                       String client,
+                       CompletableFuture<Path> result) {
+        long start = System.nanoTime();
+        try {
+            Path file = report != null
+                    ? productManager.writeReport(product, report, client)
+                    : productManager.writeProductReport(product, reviews, languageTag, client);
+            long elapsed = System.nanoTime() - start;
+            written.increment();
+            writeNanos.add(elapsed);
+            maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+            result.complete(file);
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            logger.log(Level.SEVERE, "Error printing product report " + e.getMessage());
+            result.completeExceptionally(e);
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * @return number of reports waiting for a writer thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getReportsWritten() {
+        return written.sum();
+    }
+
+    public long getReportsFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * @return average time to format and write a report, in nanoseconds
+     */
+    public long getAverageWriteNanos() {
+        long count = written.sum();
+        return count == 0 ? 0 : writeNanos.sum() / count;
+    }
+
+    public long getMaxWriteNanos() {
+        return maxWriteNanos.get();
+    }
+
+    /**
+     * stops accepting reports and waits for the queued ones to be written
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code ReportWriter} encodes report lines straight into a direct buffer that is flushed to a channel
+ * whenever it fills up, so writing a report takes the same memory whatever its length
+ * <br>
+ * writers are borrowed from a {@link Pool Pool} for one report at a time, a writer is not thread safe.
+ * characters that can not be encoded are replaced, as a {@link java.io.PrintWriter PrintWriter} would
+ * @version 4.0
+ * @author amz
+ **/
+final class ReportWriter {
+
+    private final ByteBuffer buffer;
+    private final StringBuilder line = new StringBuilder();
+    private CharsetEncoder encoder;
+    private WritableByteChannel channel;
+
+    ReportWriter(int bufferSize) {
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * starts a report written to the channel, the channel stays owned by the caller
+     */
+    ReportWriter open(WritableByteChannel channel, Charset charset) {
+        if (encoder == null || !encoder.charset().equals(charset)) {
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        encoder.reset();
+        buffer.clear();
+        this.channel = channel;
+        return this;
+    }
+
+    /**
+     * @return the line buffer, emptied, to format the next line in
+     */
+    StringBuilder line() {
+        line.setLength(0);
+        return line;
+    }
+
+    ReportWriter append(CharSequence text) throws IOException {
+        encode(CharBuffer.wrap(text), false);
+        return this;
+    }
+
+    /**
+     * writes what is left in the buffer, the writer can then open the next report
+     */
+    void close() throws IOException {
+        try {
+            encode(CharBuffer.allocate(0), true);
+            while (encoder.flush(buffer).isOverflow()) {
+                drain();
+            }
+            drain();
+        } finally {
+            channel = null;
+            if (line.capacity() > buffer.capacity()) {
+                // a single huge line should not stay allocated for the life of the writer
+                line.setLength(0);
+                line.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * writers kept for reuse, so threads writing reports at the same time share a few direct buffers
+     * instead of each thread keeping its own, which with virtual threads would be one buffer per report
+     */
+    static final class Pool {
+
+        private final Queue<ReportWriter> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final int bufferSize;
+        private final int capacity;
+
+        /**
+         * @param capacity most writers kept idle, further ones are left to the garbage collector
+         */
+        Pool(int bufferSize, int capacity) {
+            this.bufferSize = bufferSize;
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return an idle writer, or a new one when none is left
+         */
+        ReportWriter acquire() {
+            ReportWriter writer = idle.poll();
+            if (writer == null) {
+                return new ReportWriter(bufferSize);
+            }
+            idleCount.decrementAndGet();
+            return writer;
+        }
+
+        void release(ReportWriter writer) {
+            if (idleCount.incrementAndGet() > capacity) {
+                idleCount.decrementAndGet();
+                return;
+            }
+            idle.offer(writer);
+        }
+    }
+
+    private void encode(CharBuffer text, boolean endOfInput) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(text, buffer, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
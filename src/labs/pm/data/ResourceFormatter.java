@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/**
+ * {@code ResourceFormatter} formats products and reviews with the resources of one locale
+ * <br>
+ * the {@code product} and {@code review} patterns are compiled once into {@link Template templates},
+ * and {@link NumberFormat NumberFormats} are borrowed from a {@link FormatPool FormatPool}, so a formatter can
+ * be shared by all the threads writing reports
+ * @version 4.0
+ * @author amz
+ **/
+public final class ResourceFormatter {
+
+    private final Locale locale;
+    private final ResourceBundle resources;
+    private final DateTimeFormatter dateformat;
+    private final FormatPool<NumberFormat> moneyformat;
+    private final Template productTemplate;
+    private final Template reviewTemplate;
+
+    public ResourceFormatter(Locale locale) {
+        this.locale = locale;
+        resources = ResourceBundle.getBundle("labs.pm.data.resources", locale);
+        dateformat = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT);
+        moneyformat = new FormatPool<>(() -> NumberFormat.getCurrencyInstance(locale));
+        productTemplate = Template.compile(resources.getString("product"), locale);
+        reviewTemplate = Template.compile(resources.getString("review"), locale);
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public String formatProduct(Product product) {
+        return appendProduct(new StringBuilder(64), product).toString();
+    }
+
+    public String formatReview(Review review) {
+        return appendReview(new StringBuilder(64), review).toString();
+    }
+
+    /**
+     * appends the formatted product to {@code out}, so a report can reuse one builder for all its lines
+     */
+    public StringBuilder appendProduct(StringBuilder out, Product product) {
+        return productTemplate.append(out,
+                product.getName(),
+                formatMoney(product.getPrice()),
+                product.getRating().getStars(),
+                dateformat.format(product.getBestBefore()));
+    }
+
+    public StringBuilder appendReview(StringBuilder out, Review review) {
+        return reviewTemplate.append(out,
+                review.getRating().getStars(),
+                review.getComments());
+    }
+
+    public String formatMoney(BigDecimal amount) {
+        NumberFormat format = moneyformat.acquire();
+        try {
+            return format.format(amount);
+        } finally {
+            moneyformat.release(format);
+        }
+    }
+
+    public String formatMoney(double amount) {
+        NumberFormat format = moneyformat.acquire();
+        try {
+            return format.format(amount);
+        } finally {
+            moneyformat.release(format);
+        }
+    }
+
+    public String getText(String key) {
+        return resources.getString(key);
+    }
+
+    /**
+     * a {@link MessageFormat MessageFormat} pattern split once into literal text and argument indexes
+     * <br>
+     * only plain {@code {n}} arguments are split, a pattern using format types such as {@code {0,number}}
+     * is formatted with pooled {@link MessageFormat MessageFormats} instead
+     */
+    static final class Template {
+
+        private final String[] literals;
+        private final int[] arguments;
+        private final FormatPool<MessageFormat> fallback;
+
+        private Template(String[] literals, int[] arguments, FormatPool<MessageFormat> fallback) {
+            this.literals = literals;
+            this.arguments = arguments;
+            this.fallback = fallback;
+        }
+
+        static Template compile(String pattern, Locale locale) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> arguments = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i += 2;
+                        continue;
+                    }
+                    quoted = !quoted;
+                } else if (c == '{' && !quoted) {
+                    int end = pattern.indexOf('}', i);
+                    int argument = end < 0 ? -1 : argumentIndex(pattern, i + 1, end);
+                    if (argument < 0) {
+                        return fallback(pattern, locale);
+                    }
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    arguments.add(argument);
+                    i = end;
+                } else {
+                    literal.append(c);
+                }
+                i++;
+            }
+            literals.add(literal.toString());
+            return new Template(literals.toArray(String[]::new),
+                    arguments.stream().mapToInt(Integer::intValue).toArray(), null);
+        }
+
+        private static Template fallback(String pattern, Locale locale) {
+            return new Template(null, null, new FormatPool<>(() -> new MessageFormat(pattern, locale)));
+        }
+
+        /**
+         * @return the index of a plain argument between the braces, -1 when it is not one
+         */
+        private static int argumentIndex(String pattern, int start, int end) {
+            String text = pattern.substring(start, end).trim();
+            if (text.isEmpty()) {
+                return -1;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                    return -1;
+                }
+            }
+            return Integer.parseInt(text);
+        }
+
+        StringBuilder append(StringBuilder out, String... values) {
+            if (fallback != null) {
+                MessageFormat format = fallback.acquire();
+                try {
+                    return out.append(format.format(values));
+                } finally {
+                    fallback.release(format);
+                }
+            }
+            out.append(literals[0]);
+            for (int i = 0; i < arguments.length; i++) {
+                int argument = arguments[i];
+                // MessageFormat prints arguments it was not given as they appear in the pattern
+                if (argument < values.length) {
+                    out.append(values[argument] == null ? "null" : values[argument]);
+                } else {
+                    out.append('{').append(argument).append('}');
+                }
+                out.append(literals[i + 1]);
+            }
+            return out;
+        }
+    }
+}
@@ -14,6 +14,9 @@ import java.io.Serializable;
  * @author amz
  **/
 public class Review implements Comparable<Review>, Serializable {
+
+    private static final long serialVersionUID = -7503703216195992225L;
+
     private Rating rating;
     private String comments;
 
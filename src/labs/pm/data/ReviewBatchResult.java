@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.List;
+
+/**
+ * {@code ReviewBatchResult} tells what became of the reviews of a {@link ProductManager#reviewProducts(List) batch}
+ * <br>
+ * the reviews that are not listed as failures were applied, each reviewed product is listed once with its new rating
+ * @version 4.0
+ * @author amz
+ **/
+public final class ReviewBatchResult {
+
+    /**
+     * a review that was not applied
+     * @param index position of the review in the batch
+     */
+    public record Failure(int index, ProductReview review, String reason) {
+    }
+
+    private final int applied;
+    private final List<Product> products;
+    private final List<Failure> failures;
+
+    ReviewBatchResult(int applied, List<Product> products, List<Failure> failures) {
+        this.applied = applied;
+        this.products = List.copyOf(products);
+        this.failures = List.copyOf(failures);
+    }
+
+    /**
+     * @return the number of reviews applied
+     */
+    public int getApplied() {
+        return applied;
+    }
+
+    /**
+     * @return the reviewed products with their new rating, in product id order
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return the reviews that were not applied, in batch order
+     */
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        return applied + " reviews applied to " + products.size() + " products, " + failures.size() + " failed";
+    }
+}
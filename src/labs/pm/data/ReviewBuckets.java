@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * {@code ReviewBuckets} keeps the reviews of a product in report order as they are added
+ * <br>
+ * there is one append only bucket per {@link Rating Rating}, read from five stars down to not rated,
+ * so the list is always in the order {@link Review#compareTo(Review) Review.compareTo} sorts it in,
+ * reviews of equal rating staying in the order they were added.
+ * <br>
+ * {@link #add(Review) add} puts a review at the end of its rating bucket rather than at the end of the list,
+ * the list can not be changed otherwise.
+ * like the other review lists it is guarded by the product locks
+ * @version 4.0
+ * @author amz
+ **/
+public final class ReviewBuckets extends AbstractList<Review> implements RandomAccess {
+
+    private static final int LEVELS = Rating.values().length;
+
+    /**
+     * buckets by rating ordinal, created with their first review
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final List<Review>[] buckets = new List[LEVELS];
+    private int size;
+
+    public ReviewBuckets() {
+    }
+
+    public ReviewBuckets(Collection<? extends Review> reviews) {
+        for (Review review : reviews) {
+            add(review);
+        }
+    }
+
+    /**
+     * adds the review after the reviews of the same rating
+     */
+    @Override
+    public boolean add(Review review) {
+        int level = review.getRating().ordinal();
+        List<Review> bucket = buckets[level];
+        if (bucket == null) {
+            bucket = buckets[level] = new ArrayList<>();
+        }
+        bucket.add(review);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Review get(int index) {
+        Objects.checkIndex(index, size);
+        for (int level = LEVELS - 1; ; level--) {
+            List<Review> bucket = buckets[level];
+            if (bucket != null) {
+                if (index < bucket.size()) {
+                    return bucket.get(index);
+                }
+                index -= bucket.size();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * copies the buckets one after the other, it is what {@code new ArrayList<>(reviews)} uses
+     */
+    @Override
+    public Object[] toArray() {
+        Object[] copy = new Object[size];
+        int position = 0;
+        for (int level = LEVELS - 1; level >= 0; level--) {
+            List<Review> bucket = buckets[level];
+            if (bucket != null) {
+                for (Review review : bucket) {
+                    copy[position++] = review;
+                }
+            }
+        }
+        return copy;
+    }
+}
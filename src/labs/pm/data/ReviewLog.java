@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * {@code ReviewLog} is an append only write ahead log of reviews
+ * <br>
+ * every review is appended as a checksummed record before it is applied, {@link #sync(long) sync} then makes it
+ * durable. syncs are grouped: the first caller forces the file for every record appended so far while the
+ * others wait for it, so one fsync covers many reviews.
+ * <br>
+ * the log belongs to a generation, a snapshot records the generation of the log that continues it.
+ * writing a new snapshot starts the next generation, so records already in a snapshot are never replayed twice.
+ * <br>
+ * records found when the log is opened are pending until they are {@link #replay(int, Replay) replayed}, the log
+ * refuses to start a new generation before, so a snapshot never drops reviews that were not applied to it.
+ * <br>
+ * record layout: length of the payload, CRC32 of the payload, then product id, rating ordinal and
+ * length prefixed UTF-8 comments, -1 for no comments. a torn record at the end of the file is dropped when the
+ * log is opened
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewLog implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(ReviewLog.class.getName());
+
+    static final int MAGIC = 0x504D574C;
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int NULL_COMMENT = -1;
+
+    /**
+     * snapshot generation to {@link #replay(int, Replay) replay} on when the catalog was loaded from the data folder
+     */
+    static final int NO_SNAPSHOT = -1;
+
+    /**
+     * replays one logged review
+     */
+    @FunctionalInterface
+    interface Replay {
+        void review(int id, Rating rating, String comments);
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final boolean fsync;
+    private final Lock appendLock = new ReentrantLock();
+    private final Lock syncLock = new ReentrantLock();
+
+    private int generation;
+
+    /**
+     * whether records found when the log was opened still have to be replayed
+     */
+    private volatile boolean pending;
+
+    /**
+     * bytes appended since the log was opened, a record is identified by the count right after it
+     */
+    private volatile long appended;
+    private volatile long durable;
+
+    /**
+     * @param generation generation of a new or empty log, the one recorded by the newest snapshot
+     * @param fsync force records to disk on {@link #sync(long) sync}, otherwise they are only written
+     */
+    ReviewLog(Path file, int generation, boolean fsync) throws IOException {
+        this.file = file;
+        this.fsync = fsync;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            // new, or emptied by a reset that did not get to write its header: it continues the newest snapshot
+            writeHeader(generation);
+        } else {
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (header == null || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("not a review log " + file);
+            }
+            this.generation = header.getInt();
+            long end = replay(null);
+            if (end < channel.size()) {
+                logger.log(Level.WARNING, "Dropping " + (channel.size() - end) + " bytes of incomplete reviews from " + file);
+                channel.truncate(end);
+            }
+            pending = end > HEADER_SIZE;
+        }
+        channel.position(channel.size());
+    }
+
+    int getGeneration() {
+        return generation;
+    }
+
+    long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * @throws IOException when records found on opening were never replayed, a new generation would drop them
+     */
+    void checkReplayed() throws IOException {
+        if (pending) {
+            throw new IOException("review log " + file + " holds reviews that were never replayed");
+        }
+    }
+
+    /**
+     * writes a review to the log, it is not durable before {@link #sync(long) sync} returns
+     * @return the sequence number to sync on
+     */
+    long append(int id, Rating rating, String comments) throws IOException {
+        byte[] text = encode(comments);
+        ByteBuffer record = ByteBuffer.allocate(recordSize(text));
+        put(record, id, rating, text);
+        record.flip();
+        return write(record);
+    }
+
+    /**
+     * writes the reviews of a batch with a single write, they are not durable before {@link #sync(long) sync} returns
+     * @return the sequence number to sync on
+     */
+    long append(List<ProductReview> reviews) throws IOException {
+        byte[][] texts = new byte[reviews.size()][];
+        int size = 0;
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = encode(reviews.get(i).comments());
+            size += recordSize(texts[i]);
+        }
+        ByteBuffer records = ByteBuffer.allocate(size);
+        for (int i = 0; i < texts.length; i++) {
+            ProductReview review = reviews.get(i);
+            put(records, review.productId(), review.rating(), texts[i]);
+        }
+        records.flip();
+        return write(records);
+    }
+
+    private static byte[] encode(String comments) {
+        return comments == null ? null : comments.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int recordSize(byte[] text) {
+        return RECORD_HEADER_SIZE + Integer.BYTES + Byte.BYTES + Integer.BYTES + (text == null ? 0 : text.length);
+    }
+
+    private static void put(ByteBuffer buffer, int id, Rating rating, byte[] text) {
+        int start = buffer.position();
+        int payload = recordSize(text) - RECORD_HEADER_SIZE;
+        buffer.position(start + RECORD_HEADER_SIZE);
+        buffer.putInt(id).put((byte) rating.ordinal());
+        if (text == null) {
+            buffer.putInt(NULL_COMMENT);
+        } else {
+            buffer.putInt(text.length).put(text);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(start, payload).putInt(start + Integer.BYTES, (int) crc.getValue());
+    }
+
+    private long write(ByteBuffer records) throws IOException {
+        appendLock.lock();
+        try {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            appended += records.limit();
+            return appended;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * returns once the record is durable, forcing the file when no one else already did
+     */
+    void sync(long sequence) throws IOException {
+        if (durable >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            // a sync that ran while we waited may have covered this record too
+            if (durable >= sequence) {
+                return;
+            }
+            long covered = appended;
+            if (fsync) {
+                channel.force(false);
+            }
+            durable = covered;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * empties the log and starts a new generation, the caller makes sure nothing is appended meanwhile
+     * @throws IOException when records found on opening were never replayed
+     */
+    void reset(int generation) throws IOException {
+        checkReplayed();
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            // the snapshot of the new generation is already in place: a crash before the header is written
+            // leaves an empty log, which is opened again with the generation of that snapshot
+            channel.truncate(0);
+            writeHeader(generation);
+            channel.position(HEADER_SIZE);
+            durable = appended;
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * replays the records of the log on a catalog restored from a snapshot of the given generation, or loaded from
+     * the data folder with {@link #NO_SNAPSHOT NO_SNAPSHOT}
+     * <br>
+     * the records of an older generation are already in the snapshot, the log then starts the snapshot generation.
+     * a newer generation means the snapshot it continues is gone, its records are replayed all the same
+     * @return number of replayed reviews
+     */
+    int replay(int snapshotGeneration, Replay target) throws IOException {
+        if (snapshotGeneration != NO_SNAPSHOT && generation < snapshotGeneration) {
+            logger.log(Level.INFO, "Review log generation " + generation + " is already in snapshot generation "
+                    + snapshotGeneration + ", nothing to replay");
+            pending = false;
+            reset(snapshotGeneration);
+            return 0;
+        }
+        if (snapshotGeneration == NO_SNAPSHOT) {
+            logger.log(Level.INFO, "Replaying review log generation " + generation + " without a snapshot");
+        } else if (generation > snapshotGeneration) {
+            logger.log(Level.WARNING, "Replaying review log generation " + generation + " on snapshot generation "
+                    + snapshotGeneration + ", the snapshot it continues is missing");
+        }
+        int[] count = new int[1];
+        replay((id, rating, comments) -> {
+            target.review(id, rating, comments);
+            count[0]++;
+        });
+        pending = false;
+        return count[0];
+    }
+
+    /**
+     * @return the end of the last complete record
+     */
+    private long replay(Replay replay) throws IOException {
+        long position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (true) {
+            ByteBuffer header = read(position, RECORD_HEADER_SIZE);
+            if (header == null) {
+                return position;
+            }
+            int payload = header.getInt();
+            int checksum = header.getInt();
+            ByteBuffer record = payload < 0 ? null : read(position + RECORD_HEADER_SIZE, payload);
+            if (record == null) {
+                return position;
+            }
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return position;
+            }
+            if (replay != null) {
+                int id = record.getInt();
+                Rating rating = Reteable.convert(record.get());
+                int length = record.getInt();
+                String comments = null;
+                if (length != NULL_COMMENT) {
+                    byte[] text = new byte[length];
+                    record.get(text);
+                    comments = new String(text, StandardCharsets.UTF_8);
+                }
+                replay.review(id, rating, comments);
+            }
+            position += RECORD_HEADER_SIZE + payload;
+        }
+    }
+
+    /**
+     * @return the bytes at the given position, null when the file ends first
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        if (position + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        return buffer.flip();
+    }
+
+    private void writeHeader(int generation) throws IOException {
+        this.generation = generation;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(generation).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.List;
+
+/**
+ * {@code ReviewStats} keeps the running aggregates of the reviews of one product
+ * <br>
+ * count, sum of rating ordinals and a histogram by {@link Rating Rating},
+ * so the average rating is updated in O(1) for every new review.
+ * it also holds the version of the reviews that {@link ReportCache ReportCache} entries are checked against
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewStats {
+    private int count;
+    private long sum;
+    private final int[] histogram = new int[Rating.values().length];
+    private long version;
+
+    static ReviewStats of(List<Review> reviews) {
+        ReviewStats stats = new ReviewStats();
+        if (reviews instanceof LazyReviews lazy && !lazy.isMaterialized()) {
+            // the snapshot already counted them, no need to decode
+            stats.addAll(lazy.getHistogram());
+        } else if (reviews instanceof PackedReviews packed) {
+            // the buckets are counted, no need to read the comments
+            stats.addAll(packed.getHistogram());
+        } else {
+            reviews.forEach(review -> stats.add(review.getRating()));
+        }
+        return stats;
+    }
+
+    private void addAll(int[] histogram) {
+        for (int ordinal = 0; ordinal < histogram.length; ordinal++) {
+            count += histogram[ordinal];
+            sum += (long) ordinal * histogram[ordinal];
+            this.histogram[ordinal] += histogram[ordinal];
+        }
+    }
+
+    void add(Rating rating) {
+        count++;
+        sum += rating.ordinal();
+        histogram[rating.ordinal()]++;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    int getCount(Rating rating) {
+        return histogram[rating.ordinal()];
+    }
+
+    long getSum() {
+        return sum;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version a version greater than any the product had before
+     */
+    void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * average of the review ratings rounded to the closest star,
+     * {@link Rating#NOT_RATED NOT_RATED} when there are no reviews
+     * @return Rating
+     */
+    Rating getAverage() {
+        return Reteable.convert((int) Math.round(count == 0 ? 0 : (double) sum / count));
+    }
+}
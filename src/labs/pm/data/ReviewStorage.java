@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+/**
+ * how {@link ProductManager} keeps the reviews of its products in memory
+ * @author amz
+ **/
+public enum ReviewStorage {
+
+    /**
+     * one {@link Review Review} object per review, in {@link ReviewBuckets ReviewBuckets}
+     */
+    HEAP,
+
+    /**
+     * comments encoded in an off heap {@link CommentArena CommentArena}, the rating implied by the bucket,
+     * in {@link PackedReviews PackedReviews}. {@link Review Review} objects are only created when read
+     */
+    PACKED
+}
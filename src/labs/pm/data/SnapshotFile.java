@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code SnapshotFile} reads and writes catalog snapshots in a compact binary format
+ * <br>
+ * layout, all numbers big endian:
+ * <ul>
+ *     <li>header: magic {@code PMSN}, format version, product count, {@link ReviewLog ReviewLog} generation,
+ *     product table offset, review count</li>
+ *     <li>review blocks, one per product in table order: rating byte, then length prefixed UTF-8 comments,
+ *     length -1 for none</li>
+ *     <li>product table: type, id, rating, unscaled price and scale, best before epoch day, length prefixed UTF-8 name,
+ *     offset and number of its reviews and the review count of every {@link Rating Rating}</li>
+ * </ul>
+ * the table comes last so the file is written in one pass, the header is patched once the table offset is known.
+ * <br>
+ * snapshots written by earlier versions with {@link java.io.ObjectOutputStream ObjectOutputStream} are still read
+ * @version 4.0
+ * @author amz
+ **/
+class SnapshotFile {
+
+    static final int MAGIC = 0x504D534E;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * first bytes of a Java serialization stream, used by snapshots of earlier versions
+     */
+    private static final short SERIALIZATION_MAGIC = (short) 0xACED;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RATINGS = Rating.values().length;
+
+    static final byte FOOD = 'F';
+    static final byte DRINK = 'D';
+    static final byte PRODUCT = 'P';
+
+    /**
+     * length written instead of the bytes of a null string
+     */
+    static final int NULL_STRING = -1;
+
+    /**
+     * writes the snapshot next to the target and moves it in place, so a crash never leaves half a snapshot.
+     * the partial file is removed when the write fails
+     */
+    static void write(Path file, Map<Product, List<Review>> products, int logGeneration) throws IOException {
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            writePart(part, products, logGeneration);
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable e) {
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private static void writePart(Path part, Map<Product, List<Review>> products, int logGeneration)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel, HEADER_SIZE);
+
+            // review blocks first, remembering where each product starts
+            long[] offsets = new long[products.size()];
+            int[][] histograms = new int[products.size()][];
+            long reviewCount = 0;
+            int i = 0;
+            for (Map.Entry<Product, List<Review>> entry : products.entrySet()) {
+                List<Review> reviews = entry.getValue();
+                offsets[i] = out.position();
+                if (reviews instanceof LazyReviews lazy && !lazy.isMaterialized()) {
+                    // still encoded as read from an earlier snapshot, copy the bytes as they are
+                    out.putBytes(lazy.getBlock());
+                    histograms[i++] = lazy.getHistogram();
+                } else {
+                    int[] histogram = new int[RATINGS];
+                    for (Review review : reviews) {
+                        out.putByte((byte) review.getRating().ordinal());
+                        out.putString(review.getComments());
+                        histogram[review.getRating().ordinal()]++;
+                    }
+                    histograms[i++] = histogram;
+                }
+                reviewCount += reviews.size();
+            }
+
+            long tableOffset = out.position();
+            i = 0;
+            for (Map.Entry<Product, List<Review>> entry : products.entrySet()) {
+                Product product = entry.getKey();
+                out.putByte(product instanceof Food ? FOOD : product instanceof Drink ? DRINK : PRODUCT);
+                out.putInt(product.getId());
+                out.putByte((byte) product.getRating().ordinal());
+                out.putLong(product.getPriceUnits());
+                out.putInt(product.getPriceScale());
+                out.putLong(product instanceof Food ? product.getBestBefore().toEpochDay() : 0);
+                out.putString(product.getName());
+                out.putLong(offsets[i]);
+                out.putInt(entry.getValue().size());
+                for (int count : histograms[i]) {
+                    out.putInt(count);
+                }
+                i++;
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(products.size())
+                    .putInt(logGeneration)
+                    .putLong(tableOffset)
+                    .putLong(reviewCount)
+                    .flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            // the review log is emptied once this snapshot is in place, so it must be on disk first
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return the generation of the review log that continues the snapshot, 0 for serialized snapshots
+     */
+    static int logGeneration(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            return header.position() == HEADER_SIZE && header.getInt(0) == MAGIC ? header.getInt(12) : 0;
+        }
+    }
+
+    /**
+     * reads a binary snapshot, or a serialized map written by an earlier version
+     * @param mapped map binary snapshots in memory and only decode the reviews of a product when its list is used,
+     *               the products are always read right away
+     */
+    static Map<Product, List<Review>> read(Path file, boolean mapped) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until the magic is complete or the file ends
+            }
+            magic.flip();
+            if (magic.remaining() == Integer.BYTES && magic.getInt(0) == MAGIC) {
+                return mapped ? readMapped(channel) : readBinary(channel);
+            }
+            if (magic.remaining() >= Short.BYTES && magic.getShort(0) == SERIALIZATION_MAGIC) {
+                return readSerialized(channel);
+            }
+            throw new IOException("unknown snapshot format " + file);
+        }
+    }
+
+    private static Map<Product, List<Review>> readBinary(FileChannel channel) throws IOException {
+        Input in = new Input(channel, 0);
+        in.getInt();
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        int productCount = in.getInt();
+        in.getInt();
+        long tableOffset = in.getLong();
+
+        Input table = new Input(channel, tableOffset);
+        Product[] products = new Product[productCount];
+        int[] reviewCounts = new int[productCount];
+        for (int i = 0; i < productCount; i++) {
+            products[i] = readProduct(table);
+            table.getLong();
+            reviewCounts[i] = table.getInt();
+            for (int r = 0; r < RATINGS; r++) {
+                table.getInt();
+            }
+        }
+
+        // review blocks are in table order right after the header
+        Input reviews = new Input(channel, HEADER_SIZE);
+        Map<Product, List<Review>> restored = new HashMap<>(productCount * 4 / 3 + 1);
+        for (int i = 0; i < productCount; i++) {
+            List<Review> productReviews = new ReviewBuckets();
+            for (int r = 0; r < reviewCounts[i]; r++) {
+                productReviews.add(readReview(reviews));
+            }
+            restored.put(products[i], productReviews);
+        }
+        return restored;
+    }
+
+    /**
+     * reads the product table and maps the review blocks, a mapping stays valid after its channel is closed
+     */
+    private static Map<Product, List<Review>> readMapped(FileChannel channel) throws IOException {
+        Input in = new Input(channel, 0);
+        in.getInt();
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        int productCount = in.getInt();
+        in.getInt();
+        long tableOffset = in.getLong();
+
+        Input table = new Input(channel, tableOffset);
+        Product[] products = new Product[productCount];
+        long[] offsets = new long[productCount + 1];
+        int[] reviewCounts = new int[productCount];
+        int[][] histograms = new int[productCount][RATINGS];
+        for (int i = 0; i < productCount; i++) {
+            products[i] = readProduct(table);
+            offsets[i] = table.getLong();
+            reviewCounts[i] = table.getInt();
+            for (int r = 0; r < RATINGS; r++) {
+                histograms[i][r] = table.getInt();
+            }
+        }
+        // blocks follow each other in table order, the last one ends where the table starts
+        offsets[productCount] = tableOffset;
+
+        // a mapping is limited to 2GB, so start a new region at the first block that would not fit
+        Map<Product, List<Review>> restored = new HashMap<>(productCount * 4 / 3 + 1);
+        ByteBuffer region = null;
+        long regionStart = 0;
+        for (int i = 0; i < productCount; i++) {
+            if (region == null || offsets[i + 1] - regionStart > region.capacity()) {
+                regionStart = offsets[i];
+                int end = i;
+                while (end < productCount && offsets[end + 1] - regionStart <= Integer.MAX_VALUE) {
+                    end++;
+                }
+                if (end == i) {
+                    throw new IOException("reviews of product " + products[i].getId() + " exceed 2GB");
+                }
+                region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, offsets[end] - regionStart);
+            }
+            ByteBuffer block = region.slice((int) (offsets[i] - regionStart), (int) (offsets[i + 1] - offsets[i]));
+            restored.put(products[i], new LazyReviews(block, reviewCounts[i], histograms[i]));
+        }
+        return restored;
+    }
+
+    static Product readProduct(Input in) throws IOException {
+        byte type = in.getByte();
+        int id = in.getInt();
+        Rating rating = Reteable.convert(in.getByte());
+        BigDecimal price = BigDecimal.valueOf(in.getLong(), in.getInt());
+        long bestBefore = in.getLong();
+        String name = in.getString();
+        switch (type) {
+            case FOOD:
+                return new Food(id, name, price, rating, LocalDate.ofEpochDay(bestBefore));
+            case DRINK:
+                return new Drink(id, name, price, rating);
+            case PRODUCT:
+                return new Product(id, name, price, rating);
+            default:
+                throw new IOException("unknown product type " + type);
+        }
+    }
+
+    static Review readReview(Input in) throws IOException {
+        Rating rating = Reteable.convert(in.getByte());
+        return new Review(rating, in.getString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Product, List<Review>> readSerialized(FileChannel channel) throws IOException {
+        channel.position(0);
+        try (ObjectInputStream in = new ObjectInputStream(Channels.newInputStream(channel))) {
+            return (HashMap<Product, List<Review>>) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("unreadable serialized snapshot", e);
+        }
+    }
+
+    /**
+     * buffered sequential writes to a channel from a given position
+     */
+    static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long position;
+
+        Output(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        long position() {
+            return position + buffer.position();
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(Byte.BYTES);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putBytes(ByteBuffer source) throws IOException {
+            if (source.remaining() > buffer.remaining()) {
+                flush();
+            }
+            if (source.remaining() > buffer.capacity()) {
+                write(source);
+            } else {
+                buffer.put(source);
+            }
+        }
+
+        void putString(String value) throws IOException {
+            if (value == null) {
+                putInt(NULL_STRING);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > buffer.capacity()) {
+                flush();
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                ensure(bytes.length);
+                buffer.put(bytes);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                position += channel.write(source, position);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * buffered sequential reads from a channel from a given position
+     */
+    static class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long position;
+
+        Input(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+            buffer.flip();
+        }
+
+        byte getByte() throws IOException {
+            ensure(Byte.BYTES);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        String getString() throws IOException {
+            int length = getInt();
+            if (length == NULL_STRING) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            if (length > buffer.capacity()) {
+                int buffered = buffer.remaining();
+                buffer.get(bytes, 0, buffered);
+                ByteBuffer rest = ByteBuffer.wrap(bytes, buffered, length - buffered);
+                while (rest.hasRemaining()) {
+                    int read = channel.read(rest, position);
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    position += read;
+                }
+            } else {
+                ensure(length);
+                buffer.get(bytes);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                position += read;
+            }
+            buffer.flip();
+        }
+    }
+}
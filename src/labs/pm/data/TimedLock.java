@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * {@code TimedLock} records how long threads wait for a lock and how long they hold it
+ * <br>
+ * {@link #lock() lock} returns when the lock was acquired and the caller hands it back to {@link #unlock(long) unlock},
+ * so nothing is kept per thread or per acquisition. the caller may hand back a later time, e.g. once it holds
+ * every lock it needs. a nested acquisition of a reentrant lock is timed on its own
+ * @version 4.0
+ * @author amz
+ **/
+final class TimedLock {
+
+    private final Lock lock;
+    private final LatencyHistogram wait;
+    private final LatencyHistogram hold;
+
+    TimedLock(Lock lock, LatencyHistogram wait, LatencyHistogram hold) {
+        this.lock = lock;
+        this.wait = wait;
+        this.hold = hold;
+    }
+
+    /**
+     * @return {@link System#nanoTime() System.nanoTime()} when the lock was acquired
+     */
+    long lock() {
+        long start = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        wait.record(acquired - start);
+        return acquired;
+    }
+
+    /**
+     * @param acquired when the hold started, as returned by {@link #lock() lock}
+     */
+    void unlock(long acquired) {
+        hold.record(System.nanoTime() - acquired);
+        lock.unlock();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+package labs.pm.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collector;
+
+/**
+ * {@code TopK} keeps the first k elements of an order seen so far
+ * <br>
+ * the elements are held in a bounded heap whose head is the last one kept, an element is only added
+ * when it comes before it, so n elements cost n log k rather than the n log n of a full sort
+ * and the memory never exceeds k elements.
+ * <br>
+ * as a {@link #collector(Comparator, int) collector} each chunk of a parallel stream fills its own heap,
+ * the heaps being merged when the chunks are joined. elements the order ranks equal are kept in no
+ * particular order. an instance is not thread safe
+ * @version 4.0
+ * @author amz
+ **/
+final class TopK<T> {
+
+    /**
+     * heaps start small, a large k over a short stream should not allocate k slots
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Comparator<? super T> order;
+    private final int k;
+    private final PriorityQueue<T> heap;
+
+    TopK(Comparator<? super T> order, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("negative k " + k);
+        }
+        this.order = order;
+        this.k = k;
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, INITIAL_CAPACITY)), order.reversed());
+    }
+
+    /**
+     * @return a collector of the first k elements of the stream, in order
+     */
+    static <T> Collector<T, ?, List<T>> collector(Comparator<? super T> order, int k) {
+        return Collector.of(() -> new TopK<T>(order, k), TopK::accept, TopK::merge, TopK::toList,
+                Collector.Characteristics.UNORDERED);
+    }
+
+    void accept(T element) {
+        if (heap.size() < k) {
+            heap.add(element);
+        } else if (k > 0 && order.compare(element, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(element);
+        }
+    }
+
+    /**
+     * @return the merged heap, the larger of the two
+     */
+    TopK<T> merge(TopK<T> other) {
+        if (other.heap.size() > heap.size()) {
+            return other.merge(this);
+        }
+        for (T element : other.heap) {
+            accept(element);
+        }
+        return this;
+    }
+
+    /**
+     * @return the elements kept, in order
+     */
+    List<T> toList() {
+        if (heap.isEmpty()) {
+            return List.of();
+        }
+        List<T> list = new ArrayList<>(heap);
+        list.sort(order);
+        return Collections.unmodifiableList(list);
+    }
+}
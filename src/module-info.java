@@ -3,4 +3,6 @@
  **/
      module labs.pm {
      requires java.logging;
+     requires java.management;
+     exports labs.pm.data to java.management;
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class CatalogExecutorTest {
+
+    private static Set<String> threads(CatalogExecutor executor, int size) {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        long sum = executor.run(IntStream.range(0, size).boxed(), size, stream -> stream
+                .peek(i -> threads.add(Thread.currentThread().getName()))
+                .mapToLong(Integer::longValue).sum());
+        assertEquals((long) size * (size - 1) / 2, sum);
+        return threads;
+    }
+
+    @Test
+    void runsSmallCatalogsOnTheCallingThread() {
+        CatalogExecutor executor = new CatalogExecutor(ExecutionMode.PARALLEL, 4, 1000);
+        assertEquals(Set.of(Thread.currentThread().getName()), threads(executor, 999));
+    }
+
+    @Test
+    void runsLargeCatalogsOnItsOwnPool() {
+        CatalogExecutor executor = new CatalogExecutor(ExecutionMode.PARALLEL, 4, 1000);
+        assertEquals(4, executor.getParallelism());
+        Set<String> threads = threads(executor, 1_000_000);
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("catalog-worker-")), threads.toString());
+
+        executor.setMode(ExecutionMode.SEQUENTIAL);
+        assertEquals(ExecutionMode.SEQUENTIAL, executor.getMode());
+        assertEquals(Set.of(Thread.currentThread().getName()), threads(executor, 1_000_000));
+    }
+
+    @Test
+    void givesTheSameResultInEitherMode() {
+        List<Product> catalog = List.copyOf(Catalogs.random(20_000, 0, 20).keySet());
+        Map<Rating, Long> expected = catalog.stream()
+                .collect(Collectors.groupingBy(Product::getRating, Collectors.counting()));
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            CatalogExecutor executor = new CatalogExecutor(mode, 0, 100);
+            Map<Rating, Long> counted = executor.run(catalog.stream(), catalog.size(),
+                    stream -> stream.collect(Collectors.groupingByConcurrent(Product::getRating, Collectors.counting())));
+            assertEquals(expected, Map.copyOf(counted), mode.toString());
+        }
+    }
+}
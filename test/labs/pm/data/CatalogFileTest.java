@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class CatalogFileTest {
+
+    private final ProductManager productManager = ProductManagers.get();
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsWhatItWrites() throws IOException {
+        // well over the read buffer, with multi byte characters falling across its boundaries
+        Map<Product, List<Review>> catalog = Catalogs.random(5000, 5, 41);
+        Path file = folder.resolve("catalog.txt");
+        for (int bufferSize : new int[]{100, 64 * 1024}) {
+            long size = CatalogFile.write(file, catalog, productManager, new ReportWriter(bufferSize));
+            assertEquals(Files.size(file), size);
+            assertFalse(Files.exists(folder.resolve("catalog.txt.part")));
+            assertEquals(Catalogs.describe(catalog), Catalogs.describe(CatalogFile.read(file, productManager)));
+        }
+    }
+
+    @Test
+    void escapesComments() {
+        for (String comments : new String[]{null, "", "plain", "two\nlines", "\r\n", "\\", "\\N", "\\n", "N", "null",
+                "trailing \\", "a\\\nb"}) {
+            String escaped = CatalogFile.escape(comments);
+            assertEquals(-1, escaped.indexOf('\n'), comments);
+            assertEquals(-1, escaped.indexOf('\r'), comments);
+            assertEquals(comments, CatalogFile.unescape(escaped));
+        }
+        assertEquals("\\N", CatalogFile.escape(null));
+        assertEquals("two\\nlines", CatalogFile.escape("two\nlines"));
+        // a backslash before any other character is read as it is
+        assertEquals("C:\\temp", CatalogFile.unescape("C:\\temp"));
+    }
+
+    @Test
+    void readsEmptyCatalog() throws IOException {
+        Path file = folder.resolve("catalog.txt");
+        CatalogFile.write(file, Map.of(), productManager, new ReportWriter(1024));
+        assertEquals(0, Files.size(file));
+        assertEquals(Map.of(), CatalogFile.read(file, productManager));
+    }
+
+    @Test
+    void skipsLinesItCannotParse() throws IOException {
+        Path file = folder.resolve("catalog.txt");
+        Files.writeString(file, String.join("\r\n",
+                "R, 1, review without product",
+                "D, 101, Tea, 1.99, 0, ",
+                "R, 4, Nice hot cup of Tea",
+                "R, x, Not a rating",
+                "",
+                "D, x102, Broken, 1.99, 0, ",
+                "R, 3, review of the broken product",
+                "F, 103, Cake, 3.99, 0, 2024-10-17",
+                "R, 2, Rather dry") + "\r\n", StandardCharsets.UTF_8);
+
+        Map<Product, List<Review>> expected = new HashMap<>();
+        expected.put(new Drink(101, "Tea", new BigDecimal("1.99"), Rating.NOT_RATED),
+                List.of(new Review(Rating.FOUR_STAR, "Nice hot cup of Tea")));
+        expected.put(new Food(103, "Cake", new BigDecimal("3.99"), Rating.NOT_RATED,
+                        LocalDate.of(2024, 10, 17)),
+                List.of(new Review(Rating.TWO_STAR, "Rather dry")));
+        assertEquals(Catalogs.describe(expected), Catalogs.describe(CatalogFile.read(file, productManager)));
+    }
+}
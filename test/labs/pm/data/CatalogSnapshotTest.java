@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class CatalogSnapshotTest {
+
+    private static Product product(int id, Rating rating) {
+        return new Drink(id, "Drink " + id, BigDecimal.ONE, rating);
+    }
+
+    private static void assertContent(List<Product> expected, CatalogSnapshot snapshot) {
+        assertEquals(expected.size(), snapshot.size());
+        for (int position = 0; position < expected.size(); position++) {
+            assertSame(expected.get(position), snapshot.get(position), "position " + position);
+        }
+        assertEquals(expected, snapshot.stream().toList());
+    }
+
+    @Test
+    void keepsEveryVersionAsItWas() {
+        CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+        List<Product> expected = new ArrayList<>();
+        List<CatalogSnapshot> versions = new ArrayList<>();
+        List<List<Product>> contents = new ArrayList<>();
+        Random random = new Random(4);
+        for (int i = 0; i < 5000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Product product = product(expected.size(), Rating.NOT_RATED);
+                snapshot = snapshot.append(product);
+                expected.add(product);
+            } else {
+                int position = random.nextInt(expected.size());
+                Product rated = expected.get(position).applyRating(Rating.values()[random.nextInt(6)]);
+                snapshot = snapshot.replace(position, rated);
+                expected.set(position, rated);
+            }
+            assertEquals(i + 1, snapshot.getVersion());
+            if (i % 250 == 0) {
+                versions.add(snapshot);
+                contents.add(List.copyOf(expected));
+            }
+        }
+        assertContent(expected, snapshot);
+        // the versions readers held on to never saw the later changes
+        for (int version = 0; version < versions.size(); version++) {
+            assertContent(contents.get(version), versions.get(version));
+        }
+    }
+
+    @Test
+    void buildsChunksFromACollection() {
+        for (int size : new int[]{0, 1, CatalogSnapshot.CHUNK_SIZE - 1, CatalogSnapshot.CHUNK_SIZE,
+                CatalogSnapshot.CHUNK_SIZE + 1, 3 * CatalogSnapshot.CHUNK_SIZE + 7}) {
+            List<Product> products = new ArrayList<>();
+            for (int id = 0; id < size; id++) {
+                products.add(product(id, Rating.ONE_STAR));
+            }
+            CatalogSnapshot snapshot = CatalogSnapshot.of(products, 10);
+            assertEquals(10, snapshot.getVersion());
+            assertContent(products, snapshot);
+
+            Product added = product(size, Rating.TWO_STAR);
+            CatalogSnapshot appended = snapshot.append(added);
+            products.add(added);
+            assertContent(products, appended);
+            assertEquals(size, snapshot.size());
+        }
+        assertEquals(0, CatalogSnapshot.EMPTY.size());
+        assertEquals(0, CatalogSnapshot.EMPTY.stream().count());
+    }
+}
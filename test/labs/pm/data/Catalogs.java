@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * catalogs for the tests and a comparable description of them
+ * @version 4.0
+ * @author amz
+ **/
+final class Catalogs {
+
+    private Catalogs() {
+    }
+
+    /**
+     * @return food and drinks with up to {@code maxReviews} reviews, some of them without comments or with comments
+     * spanning lines. prices are as parsing gives them, 1.5 rather than 1.50
+     */
+    static Map<Product, List<Review>> random(int size, int maxReviews, long seed) {
+        Random random = new Random(seed);
+        Rating[] ratings = Rating.values();
+        Map<Product, List<Review>> catalog = new HashMap<>();
+        for (int id = 1; id <= size; id++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000) / 100.0);
+            Rating rating = ratings[random.nextInt(ratings.length)];
+            Product product = switch (id % 3) {
+                case 0 -> new Food(id, "Food " + id, price, rating, LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400)));
+                case 1 -> new Drink(id, "Drink " + id, price, rating);
+                default -> new Drink(id, "Drink é很 " + id, price, rating);
+            };
+            List<Review> reviews = new ArrayList<>();
+            int count = random.nextInt(maxReviews + 1);
+            for (int r = 0; r < count; r++) {
+                String comments = switch (random.nextInt(20)) {
+                    case 0, 1 -> null;
+                    case 2 -> "First line\nsecond line\r\nthird line";
+                    case 3 -> "C:\\temp\\new \\N \\n";
+                    case 4 -> "\\N";
+                    default -> "Comment " + random.nextInt(1000) + " très bon";
+                };
+                reviews.add(new Review(ratings[random.nextInt(ratings.length)], comments));
+            }
+            catalog.put(product, reviews);
+        }
+        return catalog;
+    }
+
+    /**
+     * @return one line per product in id order with all its fields and reviews, the review lists keep their
+     * own order so reviews are sorted
+     */
+    static String describe(Map<Product, List<Review>> catalog) {
+        return catalog.entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> entry.getKey().getId()))
+                .map(entry -> describe(entry.getKey()) + " " + entry.getValue().stream()
+                        .map(review -> review.getRating() + ":" + review.getComments())
+                        .sorted()
+                        .collect(Collectors.joining("|", "[", "]")))
+                .collect(Collectors.joining("\n"));
+    }
+
+    static String describe(Product product) {
+        return product.getClass().getSimpleName() + " " + product.getId() + " " + product.getName() + " "
+                + product.getPrice() + " " + product.getRating()
+                + (product instanceof Food ? " " + product.getBestBefore() : "");
+    }
+}
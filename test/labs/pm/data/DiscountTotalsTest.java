@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class DiscountTotalsTest {
+
+    private static final LocalTime HAPPY_HOUR = LocalTime.of(18, 0);
+    private static final LocalTime NOON = LocalTime.NOON;
+
+    /**
+     * @return what the discounts of every product add up to at the given time, as products compute them one by one
+     */
+    private static Map<Rating, Long> recompute(List<Product> catalog, LocalDate today, LocalTime now) {
+        Map<Rating, Long> totals = new HashMap<>();
+        for (Product product : catalog) {
+            boolean applies = product instanceof Food ? product.getBestBefore().equals(today)
+                    : !(product instanceof Drink) || Drink.isHappyHour(now);
+            long cents = product.getPrice().multiply(Product.DISCOUNT_RATE).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValueExact();
+            totals.merge(product.getRating(), applies ? cents : 0, Long::sum);
+        }
+        return totals;
+    }
+
+    /**
+     * checks the totals on days in order, days before the last one are dropped
+     */
+    private static void assertTotals(List<Product> catalog, DiscountTotals discounts, List<LocalDate> days) {
+        for (LocalDate day : days) {
+            for (LocalTime time : List.of(HAPPY_HOUR, NOON)) {
+                assertEquals(recompute(catalog, day, time), discounts.totals(day, time), day + " " + time);
+            }
+        }
+    }
+
+    @Test
+    void totalsMatchFullRecompute() {
+        List<Product> catalog = new ArrayList<>(Catalogs.random(3000, 0, 4).keySet());
+        // plain products, neither food nor drinks, are always discounted
+        for (int id = 3001; id <= 3500; id++) {
+            catalog.add(new Product(id, "Product " + id, BigDecimal.valueOf(id * 7L, 2), Rating.values()[id % 6]));
+        }
+        List<LocalDate> days = catalog.stream().filter(product -> product instanceof Food)
+                .map(Product::getBestBefore).distinct().sorted().toList();
+        DiscountTotals discounts = new DiscountTotals();
+        int half = catalog.size() / 2;
+        catalog.subList(0, half).forEach(discounts::add);
+        discounts.addAll(catalog.subList(half, catalog.size()).stream().collect(Collectors.groupingByConcurrent(
+                DiscountTotals.Slot::of, Collectors.summarizingLong(Product::getDiscountCents))));
+        assertTotals(catalog, discounts, List.of(LocalDate.of(1999, 1, 1), days.get(0), days.get(10), days.get(20)));
+
+        // products rated again, as reviews do
+        Random random = new Random(5);
+        Rating[] ratings = Rating.values();
+        for (int i = 0; i < 10_000; i++) {
+            int position = random.nextInt(catalog.size());
+            Product previous = catalog.get(position);
+            Product rated = previous.applyRating(ratings[random.nextInt(ratings.length)]);
+            discounts.remove(previous);
+            discounts.add(rated);
+            catalog.set(position, rated);
+        }
+        assertTotals(catalog, discounts, List.of(days.get(20), days.get(30), days.get(days.size() - 1)));
+
+        discounts.clear();
+        assertEquals(Map.of(), discounts.totals(LocalDate.now(), NOON));
+    }
+
+    @Test
+    void dropsDaysWithoutFood() {
+        LocalDate today = LocalDate.of(2024, 3, 1);
+        Product yesterday = new Food(1, "Bread", BigDecimal.valueOf(2.00), Rating.NOT_RATED, today.minusDays(1));
+        Product bread = new Food(2, "Bread", BigDecimal.valueOf(2.00), Rating.NOT_RATED, today);
+        Product tomorrow = new Food(3, "Bread", BigDecimal.valueOf(2.00), Rating.NOT_RATED, today.plusDays(1));
+        DiscountTotals discounts = new DiscountTotals();
+        discounts.add(yesterday);
+        discounts.add(bread);
+        discounts.add(tomorrow);
+        assertEquals(3, discounts.days());
+
+        // yesterday is over once today was asked for
+        assertEquals(Map.of(Rating.NOT_RATED, 20L), discounts.totals(today, NOON));
+        assertEquals(2, discounts.days());
+        discounts.remove(yesterday);
+        discounts.remove(bread);
+        assertEquals(1, discounts.days());
+        assertEquals(Map.of(Rating.NOT_RATED, 0L), discounts.totals(today, NOON));
+
+        discounts.remove(tomorrow);
+        assertEquals(0, discounts.days());
+        assertEquals(Map.of(), discounts.totals(today.plusDays(1), NOON));
+
+        // food best before a day already over is counted but not totalled
+        discounts.add(yesterday);
+        assertEquals(0, discounts.days());
+        assertEquals(Map.of(Rating.NOT_RATED, 0L), discounts.totals(today.plusDays(1), NOON));
+    }
+
+    /**
+     * @return the formatted discounts of {@link ProductManager#getDiscounts(String) getDiscounts} in cents
+     */
+    private static Map<String, Long> cents(Map<String, String> discounts) throws ParseException {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(Locale.UK);
+        format.setParseBigDecimal(true);
+        Map<String, Long> cents = new HashMap<>();
+        for (Map.Entry<String, String> discount : discounts.entrySet()) {
+            BigDecimal amount = (BigDecimal) format.parse(discount.getValue());
+            cents.put(discount.getKey(), amount.movePointRight(2).longValueExact());
+        }
+        return cents;
+    }
+
+    @Test
+    void staleProductsDoNotSkewTotals() throws ParseException {
+        ProductManager productManager = ProductManagers.get();
+        int id = ProductManagers.ids(1);
+        LocalDate today = LocalDate.now();
+        Map<String, Long> expected = cents(productManager.getDiscounts("en-GB"));
+        // food best before today, so its discount applies whatever the time
+        Product stale = productManager.createProduct(id, "Stale", BigDecimal.valueOf(3.99), Rating.NOT_RATED, today);
+
+        // every review is given the product as it was created
+        productManager.reviewProduct(stale, Rating.FIVE_STAR, "first");
+        productManager.reviewProduct(stale, Rating.ONE_STAR, "second");
+        Product rated = productManager.reviewProduct(stale, Rating.THREE_STAR, "third");
+        assertEquals(Rating.THREE_STAR, rated.getRating());
+
+        expected.merge(Rating.THREE_STAR.getStars(), 40L, Long::sum);
+        assertEquals(today, LocalDate.now(), "the day changed during the test");
+        assertEquals(expected, cents(productManager.getDiscounts("en-GB")));
+    }
+}
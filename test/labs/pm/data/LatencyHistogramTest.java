@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class LatencyHistogramTest {
+
+    @Test
+    void reportsPercentilesWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(23);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // from nanoseconds to seconds, as lock waits and report writes are
+            values[i] = (long) Math.pow(10, random.nextDouble() * 9.5);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double fraction : new double[]{0.0, 0.25, 0.5, 0.9, 0.99, 0.999, 1.0}) {
+            long exact = values[(int) Math.max(0, Math.ceil(fraction * values.length) - 1)];
+            long reported = histogram.getPercentile(fraction);
+            // a bucket is at most 1/32 of its values wide
+            assertTrue(reported >= exact && reported <= exact + exact / 32,
+                    fraction + ": " + reported + " for " + exact);
+        }
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(Arrays.stream(values).sum() / values.length, histogram.getMean());
+    }
+
+    @Test
+    void keepsSmallValuesExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int value = 0; value < 32; value++) {
+            histogram.record(value);
+        }
+        assertEquals(15, histogram.getPercentile(0.5));
+        assertEquals(31, histogram.getPercentile(1.0));
+        assertEquals(0, histogram.getPercentile(0.0));
+    }
+
+    @Test
+    void capsNegativeAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.5));
+        assertEquals(histogram.getMax(), histogram.getPercentile(1.0));
+        assertTrue(histogram.getMax() > 1_000_000_000_000L);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getPercentile(0.99));
+    }
+
+    @Test
+    void countsValuesFromManyThreads() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.range(0, 400_000).parallel().forEach(i -> histogram.record(i % 1000));
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(999, histogram.getMax());
+        assertEquals(499, histogram.getMean());
+        // 500 is in a bucket of width 16
+        long median = histogram.getPercentile(0.5);
+        assertTrue(median >= 499 && median < 499 + 16, Long.toString(median));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class LazyReviewsTest {
+
+    @TempDir
+    Path folder;
+
+    private Map<Product, List<Review>> mapped(Map<Product, List<Review>> catalog) throws IOException {
+        Path file = folder.resolve("catalog.temp");
+        SnapshotFile.write(file, catalog, 0);
+        return SnapshotFile.read(file, true);
+    }
+
+    @Test
+    void countsReviewsWithoutDecodingThem() throws IOException {
+        Map<Product, List<Review>> catalog = Catalogs.random(300, 30, 9);
+        Map<Product, List<Review>> restored = mapped(catalog);
+        assertEquals(catalog.keySet(), restored.keySet());
+        catalog.forEach((product, reviews) -> {
+            LazyReviews lazy = assertInstanceOf(LazyReviews.class, restored.get(product));
+            assertEquals(reviews.size(), lazy.size());
+
+            ReviewStats expected = ReviewStats.of(reviews);
+            ReviewStats counted = ReviewStats.of(lazy);
+            assertEquals(expected.getCount(), counted.getCount());
+            assertEquals(expected.getSum(), counted.getSum());
+            for (Rating rating : Rating.values()) {
+                assertEquals(expected.getCount(rating), counted.getCount(rating));
+            }
+            assertFalse(lazy.isMaterialized());
+        });
+    }
+
+    @Test
+    void decodesInReportOrder() throws IOException {
+        Map<Product, List<Review>> catalog = Catalogs.random(100, 30, 10);
+        Map<Product, List<Review>> restored = mapped(catalog);
+        catalog.forEach((product, reviews) -> {
+            List<Review> lazy = restored.get(product);
+            List<Review> sorted = new ArrayList<>(reviews);
+            sorted.sort(null);
+            assertEquals(describe(sorted), describe(lazy), "product " + product.getId());
+            assertTrue(((LazyReviews) lazy).isMaterialized() || reviews.isEmpty());
+        });
+    }
+
+    @Test
+    void decodesBeforeAReviewIsAdded() throws IOException {
+        Map<Product, List<Review>> catalog = Catalogs.random(50, 10, 11);
+        Map<Product, List<Review>> restored = mapped(catalog);
+        catalog.forEach((product, reviews) -> {
+            List<Review> lazy = restored.get(product);
+            Review added = new Review(Rating.THREE_STAR, "added after the restore");
+            lazy.add(added);
+            assertTrue(((LazyReviews) lazy).isMaterialized());
+
+            List<Review> expected = new ArrayList<>(reviews);
+            expected.add(added);
+            expected.sort(null);
+            assertEquals(describe(expected), describe(lazy), "product " + product.getId());
+        });
+    }
+
+    private static String describe(List<Review> reviews) {
+        // reviews of equal rating are in the order they were written
+        return reviews.stream().map(review -> review.getRating() + ":" + review.getComments()).toList().toString();
+    }
+}
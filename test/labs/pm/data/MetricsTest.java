@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import labs.pm.data.Metrics.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class MetricsTest {
+
+    @Test
+    void countsCallsAndFailures() {
+        Metrics metrics = new Metrics();
+        long start = System.nanoTime();
+        metrics.record(Operation.FIND_PRODUCT, start);
+        metrics.record(Operation.FIND_PRODUCT, start);
+        metrics.record(Operation.PARSE_REVIEW, start);
+        metrics.failed(Operation.PARSE_REVIEW);
+        metrics.reportWritten(100);
+        metrics.reportWritten(20);
+        metrics.productParseFailed();
+
+        LatencyStats find = metrics.getOperation(Operation.FIND_PRODUCT);
+        assertEquals("findProduct", find.name());
+        assertEquals(2, find.count());
+        assertEquals(0, find.errors());
+        assertEquals(1, metrics.getOperation(Operation.PARSE_REVIEW).errors());
+        assertEquals(0, metrics.getOperation(Operation.DUMP_DATA).count());
+        assertEquals(Operation.values().length, metrics.getOperations().size());
+        assertEquals(2, metrics.getReportsWritten());
+        assertEquals(120, metrics.getReportBytesWritten());
+        assertEquals(1, metrics.getProductParseFailures());
+        assertEquals(0, metrics.getReviewParseFailures());
+
+        metrics.reset();
+        assertEquals(0, metrics.getOperation(Operation.FIND_PRODUCT).count());
+        assertEquals(0, metrics.getOperation(Operation.PARSE_REVIEW).errors());
+        assertEquals(0, metrics.getReportBytesWritten());
+        assertEquals(0, metrics.getProductParseFailures());
+    }
+
+    @Test
+    void recordsWhatTheProductManagerDoes() {
+        ProductManager productManager = ProductManagers.get();
+        Metrics metrics = productManager.getMetrics();
+        long found = metrics.getOperation(Operation.FIND_PRODUCT).count();
+        long notFound = metrics.getOperation(Operation.FIND_PRODUCT).errors();
+        long parseFailures = metrics.getProductParseFailures();
+
+        int id = ProductManagers.ids(2);
+        productManager.createProduct(id, "Measured", BigDecimal.ONE, Rating.NOT_RATED);
+        assertDoesNotThrow(() -> productManager.findProduct(id));
+        assertThrows(ProductManagerException.class, () -> productManager.findProduct(id + 1));
+        assertThrows(ProductManagerException.class, () -> productManager.parseProduct("D,no id,Tea,1.99,0"));
+
+        // other tests may use the product manager at the same time
+        assertTrue(metrics.getOperation(Operation.FIND_PRODUCT).count() >= found + 2);
+        assertTrue(metrics.getOperation(Operation.FIND_PRODUCT).errors() >= notFound + 1);
+        assertTrue(metrics.getProductParseFailures() >= parseFailures + 1);
+    }
+
+    @Test
+    void isPublishedThroughJmx() throws Exception {
+        ProductManagers.get();
+        Object operations = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(Metrics.OBJECT_NAME), "Operations");
+        List<String> names = List.of((CompositeData[]) operations).stream()
+                .map(stats -> (String) stats.get("name")).toList();
+        assertTrue(names.contains("reviewProduct"), names.toString());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class PackedReviewsTest {
+
+    private static List<Review> reviews(int count, long seed) {
+        Random random = new Random(seed);
+        Rating[] ratings = Rating.values();
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String comments = switch (random.nextInt(10)) {
+                case 0 -> null;
+                case 1 -> "";
+                case 2 -> "Review " + i + " très bon 很好 🍵\nsecond line";
+                default -> "Review " + i;
+            };
+            reviews.add(new Review(ratings[random.nextInt(ratings.length)], comments));
+        }
+        return reviews;
+    }
+
+    private static String describe(List<Review> reviews) {
+        return reviews.stream().map(review -> review.getRating() + ":" + review.getComments()).toList().toString();
+    }
+
+    @Test
+    void readsLikeReviewBuckets() {
+        List<Review> added = reviews(2000, 16);
+        PackedReviews packed = new PackedReviews(new CommentArena());
+        ReviewBuckets buckets = new ReviewBuckets();
+        for (Review review : added) {
+            packed.add(review);
+            buckets.add(review);
+        }
+        assertEquals(describe(buckets), describe(packed));
+        assertEquals(describe(buckets), describe(new ArrayList<>(packed)));
+
+        int[] histogram = packed.getHistogram();
+        for (Rating rating : Rating.values()) {
+            assertEquals(added.stream().filter(review -> review.getRating() == rating).count(),
+                    histogram[rating.ordinal()], rating.toString());
+        }
+        histogram[0]++;
+        assertNotEquals(histogram[0], packed.getHistogram()[0]);
+        assertEquals(ReviewStats.of(buckets).getAverage(), ReviewStats.of(packed).getAverage());
+        assertEquals(ReviewStats.of(buckets).getSum(), ReviewStats.of(packed).getSum());
+    }
+
+    @Test
+    void sharesTheArenaBetweenProducts() {
+        CommentArena arena = new CommentArena();
+        List<PackedReviews> products = new ArrayList<>();
+        List<List<Review>> expected = new ArrayList<>();
+        for (int product = 0; product < 50; product++) {
+            products.add(new PackedReviews(arena));
+            expected.add(new ReviewBuckets());
+        }
+        Random random = new Random(17);
+        long bytes = 0;
+        for (Review review : reviews(5000, 18)) {
+            int product = random.nextInt(products.size());
+            products.get(product).add(review);
+            expected.get(product).add(review);
+            bytes += Integer.BYTES + (review.getComments() == null ? 0
+                    : review.getComments().getBytes(StandardCharsets.UTF_8).length);
+        }
+        for (int product = 0; product < products.size(); product++) {
+            assertEquals(describe(expected.get(product)), describe(products.get(product)), "product " + product);
+        }
+        assertEquals(bytes, arena.getBytesUsed());
+    }
+
+    @Test
+    void keepsCommentsLongerThanAChunk() {
+        CommentArena arena = new CommentArena();
+        String small = "small";
+        String huge = "é".repeat(1 << 20);
+        long first = arena.add(small);
+        long second = arena.add(huge);
+        long third = arena.add(null);
+        long fourth = arena.add(small);
+        assertEquals(small, arena.get(first));
+        assertEquals(huge, arena.get(second));
+        assertNull(arena.get(third));
+        assertEquals(small, arena.get(fourth));
+    }
+
+    @Test
+    void readsCommentsWhileTheyAreAdded() throws InterruptedException, ExecutionException {
+        CommentArena arena = new CommentArena();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int prefix = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        String comments = prefix + " comment " + i + " " + "z".repeat(i % 300);
+                        assertEquals(comments, arena.get(arena.add(comments)));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
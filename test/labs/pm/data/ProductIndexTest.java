@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ProductIndexTest {
+
+    private static void assertSameContent(Map<Integer, String> expected, ProductIndex<String> index) {
+        assertEquals(expected.size(), index.size());
+        expected.forEach((id, value) -> assertEquals(value, index.get(id), "id " + id));
+        List<String> values = new ArrayList<>();
+        index.forEach(values::add);
+        assertEquals(expected.values().stream().sorted().toList(), values.stream().sorted().toList());
+    }
+
+    @Test
+    void putsAndGets() {
+        ProductIndex<String> index = new ProductIndex<>();
+        assertNull(index.get(101));
+        assertNull(index.put(101, "Tea"));
+        assertEquals("Tea", index.put(101, "Green tea"));
+        assertEquals("Green tea", index.get(101));
+        assertNull(index.get(102));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void keepsIdZeroAndNegativeIds() {
+        ProductIndex<String> index = new ProductIndex<>();
+        assertNull(index.get(0));
+        index.put(0, "zero");
+        index.put(-1, "minus one");
+        index.put(Integer.MIN_VALUE, "min");
+        assertEquals("zero", index.get(0));
+        assertEquals("minus one", index.get(-1));
+        assertEquals("min", index.get(Integer.MIN_VALUE));
+        assertEquals(3, index.size());
+        assertEquals("zero", index.remove(0));
+        assertNull(index.get(0));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void growsFromTheSmallestCapacity() {
+        ProductIndex<String> index = new ProductIndex<>(1);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int id = 1; id <= 100_000; id++) {
+            index.put(id, "product " + id);
+            expected.put(id, "product " + id);
+        }
+        assertSameContent(expected, index);
+    }
+
+    @Test
+    void matchesHashMapUnderRandomChanges() {
+        ProductIndex<String> index = new ProductIndex<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // a small key range so removals hit present keys and probe chains get long
+            int id = random.nextInt(5000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), index.remove(id), "remove " + id);
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(id, value), index.put(id, value), "put " + id);
+            }
+        }
+        assertSameContent(expected, index);
+
+        // ids sharing their low bits land in the same slots
+        for (int i = 0; i < 1000; i++) {
+            int id = (i + 1) << 16;
+            index.put(id, "shifted " + i);
+            expected.put(id, "shifted " + i);
+        }
+        assertSameContent(expected, index);
+    }
+
+    @Test
+    void clears() {
+        ProductIndex<String> index = new ProductIndex<>();
+        for (int id = 0; id < 100; id++) {
+            index.put(id, "product " + id);
+        }
+        index.clear();
+        assertEquals(0, index.size());
+        assertNull(index.get(0));
+        assertNull(index.get(50));
+        index.put(50, "again");
+        assertEquals("again", index.get(50));
+    }
+}
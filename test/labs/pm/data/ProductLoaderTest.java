@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ResourceBundle;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ProductLoaderTest {
+
+    @TempDir
+    Path folder;
+
+    private final ProductManager productManager = ProductManagers.get();
+    private final ResourceBundle config = ResourceBundle.getBundle("config");
+
+    private Path file(String key, int id) {
+        return folder.resolve(MessageFormat.format(config.getString(key), id));
+    }
+
+    /**
+     * writes the product and reviews files of a random catalog, named as the data folder names them
+     * @return the catalog as the files give it back
+     */
+    private Map<Product, List<Review>> writeDataFolder(int size, long seed) throws IOException {
+        Random random = new Random(seed);
+        Rating[] ratings = Rating.values();
+        Map<Product, List<Review>> catalog = new HashMap<>();
+        for (int id = 1; id <= size; id++) {
+            BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000) / 100.0);
+            Rating rating = ratings[random.nextInt(ratings.length)];
+            LocalDate bestBefore = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400));
+            Product product = id % 2 == 0
+                    ? new Food(id, "Food " + id, price, rating, bestBefore)
+                    : new Drink(id, "Drink é很 " + id, price, rating);
+            String line = (id % 2 == 0 ? "F" : "D") + ", " + id + ", " + product.getName() + ", " + price + ", "
+                    + rating.ordinal() + ", " + bestBefore;
+            Files.writeString(file("product.data.file", id), line, StandardCharsets.UTF_8);
+
+            List<Review> reviews = new ArrayList<>();
+            StringBuilder lines = new StringBuilder();
+            for (int r = random.nextInt(6); r > 0; r--) {
+                Review review = new Review(ratings[random.nextInt(ratings.length)], "Review " + r + " of " + id);
+                reviews.add(review);
+                lines.append(review.getRating().ordinal()).append(", ").append(review.getComments()).append('\n');
+            }
+            if (!reviews.isEmpty()) {
+                Files.writeString(file("reviews.data.file", id), lines, StandardCharsets.UTF_8);
+            }
+            catalog.put(product, reviews);
+        }
+        return catalog;
+    }
+
+    @Test
+    void loadsWhatOneThreadLoads() throws IOException {
+        Map<Product, List<Review>> catalog = writeDataFolder(2000, 6);
+        for (int threads : new int[]{1, 4, 0}) {
+            ProductLoader loader = new ProductLoader(productManager, threads);
+            Map<Product, List<Review>> loaded = loader.load(folder);
+            assertEquals(Catalogs.describe(catalog), Catalogs.describe(loaded), threads + " threads");
+            assertEquals(catalog.size(), loader.getProductCount());
+            assertEquals(catalog.values().stream().mapToInt(List::size).sum(), loader.getReviewCount());
+            assertTrue(loader.getElapsedNanos() > 0);
+            assertTrue(loader.getFilesPerSecond() > 0);
+        }
+    }
+
+    @Test
+    void skipsProductFilesThatCanNotBeRead() throws IOException {
+        Map<Product, List<Review>> catalog = writeDataFolder(10, 7);
+        Files.writeString(folder.resolve("product11.csv"), "D, eleven, Broken, 1.00, 0, ");
+        Files.writeString(folder.resolve("product12.csv"), "");
+        Files.writeString(folder.resolve("reviews13.csv"), "3, a review of no product");
+
+        ProductLoader loader = new ProductLoader(productManager, 2);
+        assertEquals(Catalogs.describe(catalog), Catalogs.describe(loader.load(folder)));
+        assertEquals(10, loader.getProductCount());
+    }
+
+    @Test
+    void loadsAnEmptyFolder() throws IOException {
+        ProductLoader loader = new ProductLoader(productManager, 2);
+        assertTrue(loader.load(folder).isEmpty());
+        assertEquals(0, loader.getReviewCount());
+        assertEquals(0, loader.getFilesPerSecond());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ProductLocksTest {
+
+    private static CompletableFuture<Void> inOtherThread(Runnable task) {
+        return CompletableFuture.runAsync(task, runnable -> new Thread(runnable).start());
+    }
+
+    private static void review(ProductLocks locks, int id) {
+        long locked = locks.lockProduct(id);
+        locks.unlockReviews(id, locks.lockReviews(id));
+        locks.unlockProduct(id, locked);
+    }
+
+    private static void read(ProductLocks locks, int id) {
+        long locked = locks.readProduct(id);
+        locks.unlockReadReviews(id, locks.readReviews(id));
+        locks.unlockReadProduct(id, locked);
+    }
+
+    @Test
+    void readingAllProductsLetsReadersIn() throws Exception {
+        for (ConcurrencyMode mode : ConcurrencyMode.values()) {
+            ProductLocks locks = new ProductLocks(mode, 16, new Metrics());
+            long locked = locks.readAllProducts();
+            long reviewsLocked = locks.readAllReviews();
+            boolean held = true;
+            try {
+                inOtherThread(() -> {
+                    for (int id = 0; id < 100; id++) {
+                        read(locks, id);
+                    }
+                }).get(5, TimeUnit.SECONDS);
+
+                CompletableFuture<Void> reviewer = inOtherThread(() -> review(locks, 7));
+                assertThrows(TimeoutException.class, () -> reviewer.get(200, TimeUnit.MILLISECONDS), mode.name());
+                locks.unlockReadAllReviews(reviewsLocked);
+                locks.unlockReadAllProducts(locked);
+                held = false;
+                reviewer.get(5, TimeUnit.SECONDS);
+            } finally {
+                if (held) {
+                    locks.unlockReadAllReviews(reviewsLocked);
+                    locks.unlockReadAllProducts(locked);
+                }
+            }
+        }
+    }
+
+    @Test
+    void stripedReviewersOfOneProductExcludeEachOther() throws Exception {
+        ProductLocks locks = new ProductLocks(ConcurrencyMode.STRIPED, 16, new Metrics());
+        long locked = locks.lockProduct(7);
+        long reviewsLocked = locks.lockReviews(7);
+        boolean held = true;
+        try {
+            CompletableFuture<Void> reader = inOtherThread(() -> read(locks, 7));
+            assertThrows(TimeoutException.class, () -> reader.get(200, TimeUnit.MILLISECONDS));
+            // another stripe is free
+            inOtherThread(() -> review(locks, 8)).get(5, TimeUnit.SECONDS);
+            locks.unlockReviews(7, reviewsLocked);
+            locks.unlockProduct(7, locked);
+            held = false;
+            reader.get(5, TimeUnit.SECONDS);
+        } finally {
+            if (held) {
+                locks.unlockReviews(7, reviewsLocked);
+                locks.unlockProduct(7, locked);
+            }
+        }
+    }
+
+    @Test
+    void timesEveryLock() {
+        Metrics metrics = new Metrics();
+        ProductLocks locks = new ProductLocks(ConcurrencyMode.STRIPED, 4, metrics);
+        review(locks, 1);
+        read(locks, 1);
+        long locked = locks.readAllProducts();
+        locks.unlockReadAllReviews(locks.readAllReviews());
+        locks.unlockReadAllProducts(locked);
+        locks.setMode(ConcurrencyMode.GLOBAL);
+        review(locks, 1);
+
+        // read: 3 in striped mode, write: the mode switch and the global review, 1 and 4 stripe reads
+        List<Long> expected = List.of(3L, 2L, 5L, 1L);
+        assertEquals(expected, metrics.getLockWaits().stream().map(LatencyStats::count).toList());
+        assertEquals(expected, metrics.getLockHolds().stream().map(LatencyStats::count).toList());
+    }
+
+    @Test
+    void timesEachLockFromItsOwnAcquisition() throws InterruptedException {
+        Metrics metrics = new Metrics();
+        ProductLocks locks = new ProductLocks(ConcurrencyMode.STRIPED, 4, metrics);
+        long locked = locks.lockProduct(1);
+        Thread.sleep(50);
+        locks.unlockReviews(1, locks.lockReviews(1));
+        locks.unlockProduct(1, locked);
+
+        long millis = TimeUnit.MILLISECONDS.toNanos(1);
+        assertTrue(metrics.getLockHolds().get(0).maxNanos() >= 40 * millis, "catalog read lock");
+        assertTrue(metrics.getLockHolds().get(3).maxNanos() < 40 * millis, "stripe write lock");
+    }
+}
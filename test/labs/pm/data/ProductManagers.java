@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * the {@link ProductManager ProductManager} of the tests, on empty folders of its own and without review log
+ * <br>
+ * it is a singleton shared by every test class, so each test creates its products with {@link #ids(int) ids}
+ * no other test uses
+ * @version 4.0
+ * @author amz
+ **/
+final class ProductManagers {
+
+    private static final AtomicInteger nextId = new AtomicInteger(1_000_000);
+
+    static {
+        try {
+            Path folder = Files.createTempDirectory("pm-test");
+            for (String name : new String[]{"data", "temp", "reports"}) {
+                System.setProperty(name + ".folder", Files.createDirectories(folder.resolve(name)).toString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.setProperty("review.log.enabled", "false");
+    }
+
+    private ProductManagers() {
+    }
+
+    static ProductManager get() {
+        return ProductManager.getInstance();
+    }
+
+    /**
+     * @return the first of {@code count} product ids reserved for the caller
+     */
+    static int ids(int count) {
+        return nextId.getAndAdd(count);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ProductTest {
+
+    /**
+     * @return prices of every scale a product can have, down to the largest and smallest ones
+     */
+    private static List<BigDecimal> prices(int count, long seed) {
+        Random random = new Random(seed);
+        List<BigDecimal> prices = new ArrayList<>(List.of(BigDecimal.ZERO, new BigDecimal("0.005"),
+                new BigDecimal("0.05"), new BigDecimal("-0.05"), new BigDecimal("1E+3"), new BigDecimal("1.50"),
+                new BigDecimal("1.5"), new BigDecimal("9999999999999999.99"), new BigDecimal("-9999999999999999"),
+                new BigDecimal("9.99999999999999999"), new BigDecimal("1E+15"), BigDecimal.valueOf(Long.MIN_VALUE, 5)));
+        while (prices.size() < count) {
+            long units = switch (random.nextInt(3)) {
+                case 0 -> random.nextInt(100_000);
+                case 1 -> random.nextLong(1_000_000_000_000L) - 500_000_000_000L;
+                default -> random.nextLong();
+            };
+            BigDecimal price = BigDecimal.valueOf(units, random.nextInt(24) - 4);
+            if (price.precision() - price.scale() <= Product.MAX_INTEGER_DIGITS) {
+                prices.add(price);
+            }
+        }
+        return prices;
+    }
+
+    @Test
+    void discountsAsBigDecimalWould() {
+        for (BigDecimal price : prices(20_000, 17)) {
+            Product product = new Product(1, "Priced", price, Rating.NOT_RATED);
+            BigDecimal expected = price.multiply(Product.DISCOUNT_RATE).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, product.getDiscount(), price.toString());
+            assertEquals(expected.unscaledValue().longValueExact(), product.getDiscountCents());
+            assertEquals(price, product.getPrice());
+        }
+    }
+
+    @Test
+    void comparesPricesAsBigDecimalWould() {
+        List<BigDecimal> prices = prices(2000, 18);
+        for (int i = 0; i < prices.size(); i++) {
+            Product p1 = new Product(1, "First", prices.get(i), Rating.NOT_RATED);
+            for (int j = i; j < Math.min(prices.size(), i + 50); j++) {
+                Product p2 = new Product(2, "Second", prices.get(j), Rating.NOT_RATED);
+                int expected = Integer.signum(prices.get(i).compareTo(prices.get(j)));
+                assertEquals(expected, Integer.signum(Product.comparePrices(p1, p2)), p1.getPrice() + " " + p2.getPrice());
+                assertEquals(-expected, Integer.signum(Product.PRICE_ORDER.compare(p2, p1)));
+            }
+        }
+    }
+
+    @Test
+    void rejectsPricesThatDoNotFitALong() {
+        BigDecimal tooLong = new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), 20);
+        ArithmeticException e = assertThrows(ArithmeticException.class,
+                () -> new Product(1, "Precise", tooLong, Rating.NOT_RATED));
+        assertTrue(e.getMessage().contains(tooLong.toString()), e.getMessage());
+        assertThrows(ArithmeticException.class,
+                () -> new Drink(1, "Precise", new BigDecimal("1.0000000000000000000"), Rating.NOT_RATED));
+
+        // the discount of a larger price would not fit a long of cents
+        for (String price : new String[]{"1E+16", "10000000000000000.00", "-12345678901234567"}) {
+            assertThrows(ArithmeticException.class,
+                    () -> new Product(1, "Expensive", new BigDecimal(price), Rating.NOT_RATED), price);
+        }
+        Product largest = new Product(1, "Expensive", new BigDecimal("9999999999999999.99"), Rating.NOT_RATED);
+        assertEquals(100_000_000_000_000_000L, largest.getDiscountCents());
+    }
+
+    @Test
+    void serializesThePriceAsABigDecimal() throws IOException, ClassNotFoundException {
+        Product product = new Food(7, "Cake", new BigDecimal("3.990"), Rating.FOUR_STAR,
+                LocalDate.of(2024, 2, 29));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(product);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Product read = (Product) in.readObject();
+            assertEquals(Catalogs.describe(product), Catalogs.describe(read));
+            assertEquals(new BigDecimal("3.990"), read.getPrice());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class QueryIndexTest {
+
+    private static final int SIZE = 2000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    private static ProductManager productManager;
+    private static int firstId;
+
+    /**
+     * the products of this test only, the catalog is shared with other test classes
+     */
+    private static Predicate<Product> ours;
+
+    @BeforeAll
+    static void createCatalog() {
+        productManager = ProductManagers.get();
+        firstId = ProductManagers.ids(SIZE);
+        ours = product -> product.getId() >= firstId && product.getId() < firstId + SIZE;
+
+        // distinct prices, so every order of the test is a total order
+        List<Integer> cents = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            cents.add(100 + i * 3);
+        }
+        Random random = new Random(13);
+        Collections.shuffle(cents, random);
+        Rating[] ratings = Rating.values();
+        for (int i = 0; i < SIZE; i++) {
+            int id = firstId + i;
+            BigDecimal price = BigDecimal.valueOf(cents.get(i), 2);
+            Rating rating = ratings[random.nextInt(ratings.length)];
+            if (i % 2 == 0) {
+                productManager.createProduct(id, "Food " + id, price, rating, FIRST_DAY.plusDays(random.nextInt(60)));
+            } else {
+                productManager.createProduct(id, "Drink " + id, price, rating);
+            }
+        }
+        // reviews move products between the rating buckets
+        for (int i = 0; i < SIZE; i++) {
+            int id = firstId + random.nextInt(SIZE);
+            productManager.reviewProduct(id, ratings[1 + random.nextInt(ratings.length - 1)], "review " + i);
+        }
+    }
+
+    private static List<Product> catalog() throws ProductManagerException {
+        List<Product> catalog = new ArrayList<>();
+        for (int id = firstId; id < firstId + SIZE; id++) {
+            catalog.add(productManager.findProduct(id));
+        }
+        return catalog;
+    }
+
+    private static List<String> describe(List<Product> products) {
+        return products.stream().map(Catalogs::describe).toList();
+    }
+
+    /**
+     * @param query the query without its filter, order and page
+     * @param expected what the query must match, as a plain predicate
+     */
+    private static void assertQuery(ProductQuery query, Predicate<Product> expected, Comparator<Product> order,
+                                    int offset, int limit) throws ProductManagerException {
+        List<Product> sorted = catalog().stream().filter(expected).sorted(order).skip(offset).limit(limit).toList();
+        List<Product> found = productManager.findProducts(query.filter(ours).orderBy(order).offset(offset).limit(limit));
+        assertEquals(describe(sorted), describe(found));
+    }
+
+    private static Predicate<Product> rating(Rating min, Rating max) {
+        return product -> product.getRating().compareTo(min) >= 0 && product.getRating().compareTo(max) <= 0;
+    }
+
+    private static Predicate<Product> price(String min, String max) {
+        return product -> product.getPrice().compareTo(new BigDecimal(min)) >= 0
+                && product.getPrice().compareTo(new BigDecimal(max)) <= 0;
+    }
+
+    private static Predicate<Product> bestBefore(LocalDate from, LocalDate to) {
+        return product -> product instanceof Food
+                && !product.getBestBefore().isBefore(from) && !product.getBestBefore().isAfter(to);
+    }
+
+    @Test
+    void ordersLikeSortedStream() throws ProductManagerException {
+        Comparator<Product> byName = Comparator.comparing(Product::getName);
+        for (Comparator<Product> order : List.of(ProductQuery.BY_PRICE, ProductQuery.BY_RATING_THEN_PRICE, byName)) {
+            assertQuery(ProductQuery.products(), product -> true, order, 0, Integer.MAX_VALUE);
+            assertQuery(ProductQuery.products(), product -> true, order, 0, 10);
+            assertQuery(ProductQuery.products(), product -> true, order, 25, 50);
+            assertQuery(ProductQuery.products(), product -> true, order, SIZE - 5, 50);
+            assertQuery(ProductQuery.products(), product -> true, order, 0, 0);
+        }
+    }
+
+    @Test
+    void selectsRangesLikeFilteredStream() throws ProductManagerException {
+        Comparator<Product> byName = Comparator.comparing(Product::getName);
+        LocalDate from = FIRST_DAY.plusDays(10);
+        LocalDate to = FIRST_DAY.plusDays(20);
+        for (Comparator<Product> order : List.of(ProductQuery.BY_PRICE, ProductQuery.BY_RATING_THEN_PRICE, byName)) {
+            for (int limit : new int[]{Integer.MAX_VALUE, 20}) {
+                assertQuery(ProductQuery.products().minRating(Rating.THREE_STAR),
+                        rating(Rating.THREE_STAR, Rating.FIVE_STAR), order, 0, limit);
+                assertQuery(ProductQuery.products().minRating(Rating.ONE_STAR).maxRating(Rating.TWO_STAR),
+                        rating(Rating.ONE_STAR, Rating.TWO_STAR), order, 5, limit);
+                assertQuery(ProductQuery.products().price(new BigDecimal("10.00"), new BigDecimal("25.5")),
+                        price("10.00", "25.5"), order, 0, limit);
+                assertQuery(ProductQuery.products().price(new BigDecimal("30"), null),
+                        price("30", "1000000"), order, 0, limit);
+                assertQuery(ProductQuery.products().bestBefore(from, to), bestBefore(from, to), order, 0, limit);
+                assertQuery(ProductQuery.products().bestBefore(from, to).maxRating(Rating.FOUR_STAR)
+                                .price(null, new BigDecimal("40")),
+                        bestBefore(from, to).and(rating(Rating.NOT_RATED, Rating.FOUR_STAR)).and(price("0", "40")),
+                        order, 0, limit);
+            }
+        }
+    }
+
+    @Test
+    void selectsNothingFromEmptyRanges() {
+        assertEquals(List.of(), productManager.findProducts(ProductQuery.products().filter(ours)
+                .price(new BigDecimal("20"), new BigDecimal("10"))));
+        assertEquals(List.of(), productManager.findProducts(ProductQuery.products().filter(ours)
+                .bestBefore(FIRST_DAY.plusDays(5), FIRST_DAY)));
+        assertEquals(List.of(), productManager.findProducts(ProductQuery.products().filter(ours)
+                .minRating(Rating.FIVE_STAR).maxRating(Rating.ONE_STAR)));
+    }
+
+    @Test
+    void topKMatchesSortedStream() throws ProductManagerException {
+        Predicate<Product> cheap = price("0", "20");
+        Comparator<Product> byPriceDescending = ProductQuery.BY_PRICE.reversed();
+        List<Product> expected = catalog().stream().filter(cheap).sorted(byPriceDescending).limit(15).toList();
+        assertEquals(describe(expected), describe(productManager.topK(ours.and(cheap), byPriceDescending, 15)));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.text.MessageFormat;
+import java.text.ParseException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class RecordParserTest {
+
+    private static final String PRODUCT_PATTERN = "{0}, {1}, {2}, {3}, {4}, {5}";
+    private static final String REVIEW_PATTERN = "{0}, {1}";
+
+    private final RecordParser parser = new RecordParser(PRODUCT_PATTERN, REVIEW_PATTERN);
+
+    /**
+     * the {@code MessageFormat} parsing of {@link ProductManager#readProduct(String) readProduct}
+     */
+    private static Product parseWithMessageFormat(String text) throws ParseException {
+        Object[] values = new MessageFormat(PRODUCT_PATTERN).parse(text);
+        int id = Integer.parseInt((String) values[1]);
+        String name = (String) values[2];
+        BigDecimal price = BigDecimal.valueOf(Double.parseDouble((String) values[3]));
+        Rating rating = Reteable.convert(Integer.parseInt((String) values[4]));
+        return switch ((String) values[0]) {
+            case "F" -> new Food(id, name, price, rating, LocalDate.parse((String) values[5]));
+            case "D" -> new Drink(id, name, price, rating);
+            default -> null;
+        };
+    }
+
+    private static Review parseReviewWithMessageFormat(String text) throws ParseException {
+        Object[] values = new MessageFormat(REVIEW_PATTERN).parse(text);
+        return new Review(Reteable.convert(Integer.parseInt((String) values[0])), (String) values[1]);
+    }
+
+    /**
+     * @return the description of the parsed product or the type of the failure
+     */
+    private static String outcome(Parse parse) {
+        try {
+            Product product = parse.product();
+            return product == null ? "null" : Catalogs.describe(product);
+        } catch (Exception e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private interface Parse {
+        Product product() throws ParseException;
+    }
+
+    private void assertSameProduct(String text) {
+        String expected = outcome(() -> parseWithMessageFormat(text));
+        assertEquals(expected, outcome(() -> parser.parseProduct(text)), text);
+        assertEquals(expected, outcome(() -> parser.parseProduct(CharBuffer.wrap(text.toCharArray()))), text);
+    }
+
+    private void assertSameReview(String text) {
+        String expected;
+        try {
+            Review review = parseReviewWithMessageFormat(text);
+            expected = review.getRating() + ":" + review.getComments();
+        } catch (Exception e) {
+            expected = e.getClass().getName();
+        }
+        String actual;
+        try {
+            Review review = parser.parseReview(text);
+            actual = review.getRating() + ":" + review.getComments();
+        } catch (Exception e) {
+            actual = e.getClass().getName();
+        }
+        assertEquals(expected, actual, text);
+    }
+
+    @Test
+    void parsesProductsLikeMessageFormat() {
+        List<String> records = List.of(
+                "F, 101, Tea, 1.99, 0, 2019-09-19",
+                "D, 102, Coffee, 2.5, 4, ",
+                "D, 103, Cake, 3, 3, 2024-01-01",
+                "F, 104, Cookie, 0.0, 2, 2024-02-29",
+                "F, 105, Pie, 12.3400, 1, 2024-12-31",
+                "D, 106, Cheap, 0.001, 1, ",
+                "D, 107, Cheaper, 0.0001, 1, ",
+                "D, 108, Dear, 9999999.99, 1, ",
+                "D, 109, Dearer, 10000000, 1, ",
+                "D, 110, Precise, 1.23456789012345678, 1, ",
+                "D, 111, Negative, -2.50, 1, ",
+                "D, 112, Signed, +2.50, 1, ",
+                "D, 113, Scientific, 1e3, 1, ",
+                "D, 114, Bare point, 5., 1, ",
+                "D, 115, Leading point, .5, 1, ",
+                "X, 116, Unknown, 1.00, 1, ",
+                "FF, 117, Long type, 1.00, 1, 2024-01-01",
+                "D, 118, Comma, in name, 1.00, 1, ");
+        records.forEach(this::assertSameProduct);
+    }
+
+    @Test
+    void failsLikeMessageFormat() {
+        List<String> records = List.of(
+                "F, 101, Tea, 1.99, 0",
+                "",
+                "D",
+                "D, x101, Tea, 1.99, 0, ",
+                "D, 101, Tea, a1.99, 0, ",
+                "D, 101, Tea, , 0, ",
+                "D, 101, Tea, 1.99, 9, ",
+                "D, 101, Tea, 1.99, -1, ",
+                "F, 101, Tea, 1.99, 0, 2024-02-30",
+                "F, 101, Tea, 1.99, 0, 2024-13-01",
+                "F, 101, Tea, 1.99, 0, 24-01-01",
+                "F, 101, Tea, 1.99, 0, 2024-1a-01",
+                "F, 101, Tea, 1.99, 0, ");
+        records.forEach(this::assertSameProduct);
+    }
+
+    @Test
+    void parsesRandomPricesLikeMessageFormat() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            String price = switch (random.nextInt(4)) {
+                case 0 -> BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(5)).toPlainString();
+                case 1 -> BigDecimal.valueOf(random.nextLong(), random.nextInt(20)).toPlainString();
+                case 2 -> Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(12) - 4));
+                default -> random.nextInt(100) + "." + "0".repeat(random.nextInt(4)) + random.nextInt(100);
+            };
+            assertSameProduct("D, " + i + ", Drink, " + price + ", " + random.nextInt(5) + ", ");
+        }
+    }
+
+    @Test
+    void parsesReviewsLikeMessageFormat() {
+        List<String> records = List.of(
+                "4, Nice hot cup of tea",
+                "0, ",
+                "3, Comma, inside, the comment",
+                "5, Too high",
+                "x, Not a number",
+                "4 without delimiter",
+                "");
+        records.forEach(this::assertSameReview);
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new RecordParser("{1}, {0}, {2}, {3}, {4}, {5}", REVIEW_PATTERN));
+        assertThrows(IllegalArgumentException.class, () -> new RecordParser(PRODUCT_PATTERN, "{0}{1}"));
+        assertThrows(IllegalArgumentException.class, () -> new RecordParser(PRODUCT_PATTERN, "{0}, {1} "));
+        assertThrows(IllegalArgumentException.class, () -> new RecordParser("{0}, {1}, {2}; {3}, {4}, {5}", REVIEW_PATTERN));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReportCacheTest {
+
+    @Test
+    void servesOnlyTheCurrentVersion() {
+        ReportCache cache = new ReportCache(10, List.of("en-GB", "fr-FR"));
+        byte[] report = {1, 2, 3};
+        cache.put(1, "en-GB", 5, report);
+        assertSame(report, cache.get(1, "en-GB", 5));
+        assertNull(cache.get(1, "en-GB", 6));
+        assertNull(cache.get(1, "fr-FR", 5));
+
+        // a slower writer does not replace a newer report
+        cache.put(1, "en-GB", 4, new byte[0]);
+        assertSame(report, cache.get(1, "en-GB", 5));
+
+        cache.invalidate(1);
+        assertNull(cache.get(1, "en-GB", 5));
+        assertEquals(2, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ReportCache cache = new ReportCache(2, List.of("en-GB"));
+        cache.put(1, "en-GB", 1, new byte[1]);
+        cache.put(2, "en-GB", 1, new byte[1]);
+        assertNotNull(cache.get(1, "en-GB", 1));
+        cache.put(3, "en-GB", 1, new byte[1]);
+        assertNull(cache.get(2, "en-GB", 1));
+        assertNotNull(cache.get(1, "en-GB", 1));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void reportsFollowReviews() throws IOException {
+        ProductManager productManager = ProductManagers.get();
+        int id = ProductManagers.ids(1);
+        Product product = productManager.createProduct(id, "Cached", BigDecimal.valueOf(1.50), Rating.NOT_RATED);
+
+        productManager.printProductReport(id, "en-GB", "test");
+        assertNotNull(productManager.cachedReport(product, "en-GB"));
+
+        // rendered from reviews that are outdated by the time it is cached
+        ProductManager.VersionedReviews outdated = productManager.reviewsOf(product);
+        product = productManager.reviewProduct(id, Rating.FOUR_STAR, "first review");
+        assertNull(productManager.cachedReport(product, "en-GB"));
+        productManager.writeProductReport(product, outdated, "en-GB", "test");
+        assertNull(productManager.cachedReport(product, "en-GB"));
+
+        productManager.printProductReport(id, "en-GB", "test");
+        byte[] report = productManager.cachedReport(product, "en-GB");
+        assertNotNull(report);
+        assertTrue(new String(report, StandardCharsets.UTF_8).contains("first review"));
+    }
+}
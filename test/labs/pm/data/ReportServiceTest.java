@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReportServiceTest {
+
+    private final ProductManager productManager = ProductManagers.get();
+
+    @Test
+    void writesReportsOnItsOwnThreads() throws InterruptedException, ExecutionException, IOException {
+        ReportService service = new ReportService(productManager, 2, 1);
+        int first = ProductManagers.ids(20);
+        for (int id = first; id < first + 20; id++) {
+            productManager.createProduct(id, "Reported " + id, BigDecimal.valueOf(2.99), Rating.NOT_RATED);
+            productManager.reviewProduct(id, Rating.FOUR_STAR, "review of " + id);
+        }
+
+        // more reports than writers and queue slots, the callers wait for a slot
+        List<CompletableFuture<Path>> reports = new ArrayList<>();
+        for (int id = first; id < first + 20; id++) {
+            reports.add(service.submit(id, "en-GB", "async-" + id));
+        }
+        for (int i = 0; i < reports.size(); i++) {
+            String report = Files.readString(reports.get(i).get(), StandardCharsets.UTF_8);
+            assertTrue(report.contains("Reported " + (first + i)), report);
+            assertTrue(report.contains("review of " + (first + i)), report);
+        }
+        service.shutdown(10, TimeUnit.SECONDS);
+
+        assertEquals(20, service.getReportsWritten());
+        assertEquals(0, service.getReportsFailed());
+        assertEquals(0, service.getQueueDepth());
+        assertTrue(service.getMaxWriteNanos() >= service.getAverageWriteNanos());
+        assertTrue(service.getAverageWriteNanos() > 0);
+    }
+
+    @Test
+    void failsTheFutureRatherThanTheCaller() throws InterruptedException {
+        ReportService service = new ReportService(productManager, 1, 1);
+        int id = ProductManagers.ids(2);
+        CompletableFuture<Path> unknown = service.submit(id, "en-GB", "async");
+        ExecutionException e = assertThrows(ExecutionException.class, unknown::get);
+        assertInstanceOf(ProductManagerException.class, e.getCause());
+
+        productManager.createProduct(id + 1, "Late", BigDecimal.ONE, Rating.NOT_RATED);
+        service.shutdown(10, TimeUnit.SECONDS);
+        e = assertThrows(ExecutionException.class, () -> service.submit(id + 1, "en-GB", "async").get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertEquals(0, service.getReportsWritten());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReportWriterTest {
+
+    private static byte[] write(ReportWriter writer, Charset charset, List<String> lines) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.open(Channels.newChannel(out), charset);
+        for (String text : lines) {
+            writer.append(writer.line().append(text).append('\n'));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    private static List<String> lines(int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // characters of one to four bytes in UTF-8, so some are split by the end of the buffer
+            lines.add("Review " + i + " très bon 很好 🍵 " + "x".repeat(i % 50));
+        }
+        return lines;
+    }
+
+    private static byte[] expected(Charset charset, List<String> lines) {
+        return lines.stream().map(text -> text + "\n").reduce("", String::concat).getBytes(charset);
+    }
+
+    @Test
+    void writesWhatStringsEncodeTo() throws IOException {
+        List<String> lines = lines(500);
+        for (int bufferSize : new int[]{4, 7, 64, 8192}) {
+            for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.UTF_16, StandardCharsets.ISO_8859_1)) {
+                // characters ISO 8859-1 can not encode are replaced as getBytes replaces them
+                assertArrayEquals(expected(charset, lines), write(new ReportWriter(bufferSize), charset, lines),
+                        charset + " through " + bufferSize + " bytes");
+            }
+        }
+    }
+
+    @Test
+    void writesOneReportAfterTheOther() throws IOException {
+        ReportWriter writer = new ReportWriter(16);
+        List<String> first = lines(100);
+        List<String> second = lines(3);
+        assertArrayEquals(expected(StandardCharsets.UTF_16, first), write(writer, StandardCharsets.UTF_16, first));
+        assertArrayEquals(expected(StandardCharsets.UTF_8, second), write(writer, StandardCharsets.UTF_8, second));
+        assertArrayEquals(expected(StandardCharsets.UTF_8, List.of()), write(writer, StandardCharsets.UTF_8, List.of()));
+
+        // a line longer than the buffer is written whole, and the next report starts clean
+        List<String> huge = List.of("y".repeat(100_000), "after");
+        assertArrayEquals(expected(StandardCharsets.UTF_8, huge), write(writer, StandardCharsets.UTF_8, huge));
+        assertArrayEquals(expected(StandardCharsets.UTF_8, second), write(writer, StandardCharsets.UTF_8, second));
+    }
+}
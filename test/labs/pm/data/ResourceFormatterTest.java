@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ResourceFormatterTest {
+
+    private static final List<Locale> LOCALES = List.of(Locale.UK, Locale.US, Locale.of("es", "US"), Locale.FRANCE,
+            Locale.CHINA);
+
+    /**
+     * @return the product and review lines as MessageFormat renders them
+     */
+    private static String messageFormat(Locale locale, Product product, Review review) {
+        ResourceBundle resources = ResourceBundle.getBundle("labs.pm.data.resources", locale);
+        String date = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).format(product.getBestBefore());
+        return MessageFormat.format(resources.getString("product"), product.getName(),
+                NumberFormat.getCurrencyInstance(locale).format(product.getPrice()),
+                product.getRating().getStars(), date)
+                + "\n" + MessageFormat.format(resources.getString("review"), review.getRating().getStars(),
+                review.getComments());
+    }
+
+    private static String resourceFormatter(ResourceFormatter formatter, Product product, Review review) {
+        return formatter.formatProduct(product) + "\n" + formatter.formatReview(review);
+    }
+
+    @Test
+    void formatsAsMessageFormatOnManyThreads() throws Exception {
+        Map<Product, List<Review>> catalog = Catalogs.random(200, 3, 6);
+        for (Locale locale : LOCALES) {
+            ResourceFormatter formatter = new ResourceFormatter(locale);
+            List<Future<?>> clients = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int client = 0; client < 1000; client++) {
+                    clients.add(executor.submit(() -> catalog.forEach((product, reviews) -> {
+                        for (Review review : reviews) {
+                            assertEquals(messageFormat(locale, product, review),
+                                    resourceFormatter(formatter, product, review), locale.toLanguageTag());
+                        }
+                    })));
+                }
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+            assertEquals(NumberFormat.getCurrencyInstance(locale).format(new BigDecimal("1234.5")),
+                    formatter.formatMoney(new BigDecimal("1234.5")));
+        }
+    }
+
+    @Test
+    void poolReusesReleasedFormats() {
+        int[] created = new int[1];
+        FormatPool<StringBuilder> pool = new FormatPool<>(() -> {
+            created[0]++;
+            return new StringBuilder();
+        });
+        StringBuilder first = pool.acquire();
+        StringBuilder second = pool.acquire();
+        assertNotSame(first, second);
+        pool.release(first);
+        assertSame(first, pool.acquire());
+        assertEquals(2, created[0]);
+    }
+}
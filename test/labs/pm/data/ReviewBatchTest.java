@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewBatchTest {
+
+    private static final int SIZE = 200;
+
+    private final ProductManager productManager = ProductManagers.get();
+
+    /**
+     * @return the first id of {@code SIZE} new products, the same products for the same seed
+     */
+    private int createProducts(long seed) {
+        int firstId = ProductManagers.ids(SIZE);
+        Random random = new Random(seed);
+        Rating[] ratings = Rating.values();
+        for (int i = 0; i < SIZE; i++) {
+            productManager.createProduct(firstId + i, "Product " + i, BigDecimal.valueOf(random.nextInt(10_000), 2),
+                    ratings[random.nextInt(ratings.length)]);
+        }
+        return firstId;
+    }
+
+    private String describe(int firstId) throws ProductManagerException {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < SIZE; i++) {
+            Product product = productManager.findProduct(firstId + i);
+            description.append(i).append(' ').append(product.getRating()).append(' ');
+            for (Review review : productManager.reviewsOf(product).reviews()) {
+                description.append(review.getRating()).append(':').append(review.getComments()).append('|');
+            }
+            description.append('\n');
+        }
+        return description.toString();
+    }
+
+    @Test
+    void batchMatchesReviewsOneAtATime() throws ProductManagerException {
+        int single = createProducts(21);
+        int batched = createProducts(21);
+        assertEquals(describe(single), describe(batched));
+
+        Random random = new Random(22);
+        Rating[] ratings = Rating.values();
+        List<ProductReview> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // several reviews of the same product, in no particular product order
+            int product = random.nextInt(SIZE);
+            Rating rating = ratings[random.nextInt(ratings.length)];
+            String comments = random.nextInt(20) == 0 ? null : "review " + i;
+            productManager.reviewProduct(single + product, rating, comments);
+            batch.add(new ProductReview(batched + product, rating, comments));
+        }
+        ReviewBatchResult result = productManager.reviewProducts(batch);
+
+        assertEquals(batch.size(), result.getApplied());
+        assertEquals(List.of(), result.getFailures());
+        assertEquals(describe(single), describe(batched));
+        for (Product product : result.getProducts()) {
+            assertEquals(Catalogs.describe(productManager.findProduct(product.getId())), Catalogs.describe(product));
+        }
+    }
+
+    @Test
+    void failedReviewsDoNotStopTheBatch() throws ProductManagerException {
+        int single = createProducts(31);
+        int batched = createProducts(31);
+        int unknown = ProductManagers.ids(1);
+
+        productManager.reviewProduct(single, Rating.FOUR_STAR, "first");
+        productManager.reviewProduct(single + 1, Rating.TWO_STAR, "second");
+        List<ProductReview> batch = new ArrayList<>();
+        batch.add(new ProductReview(batched, Rating.FOUR_STAR, "first"));
+        batch.add(new ProductReview(unknown, Rating.FIVE_STAR, "unknown product"));
+        batch.add(null);
+        batch.add(new ProductReview(batched, null, "no rating"));
+        batch.add(new ProductReview(batched + 1, Rating.TWO_STAR, "second"));
+        ReviewBatchResult result = productManager.reviewProducts(batch);
+
+        assertEquals(2, result.getApplied());
+        assertEquals(List.of(1, 2, 3), result.getFailures().stream().map(ReviewBatchResult.Failure::index).toList());
+        assertEquals(List.of(batched, batched + 1), result.getProducts().stream().map(Product::getId).toList());
+        assertEquals(describe(single), describe(batched));
+    }
+}
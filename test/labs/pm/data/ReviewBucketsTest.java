@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewBucketsTest {
+
+    private static List<Review> reviews(int count, long seed) {
+        Random random = new Random(seed);
+        Rating[] ratings = Rating.values();
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            reviews.add(new Review(ratings[random.nextInt(ratings.length)], "review " + i));
+        }
+        return reviews;
+    }
+
+    @Test
+    void keepsTheOrderOfAStableSort() {
+        List<Review> added = reviews(1000, 13);
+        ReviewBuckets buckets = new ReviewBuckets();
+        List<Review> sorted = new ArrayList<>();
+        for (Review review : added) {
+            buckets.add(review);
+            sorted.add(review);
+            // the reviews of equal rating stay in the order they were added
+            Collections.sort(sorted);
+            if (sorted.size() % 97 == 0) {
+                assertEquals(sorted, buckets);
+            }
+        }
+        assertEquals(sorted, buckets);
+        assertEquals(sorted, new ArrayList<>(buckets));
+        assertEquals(sorted, new ReviewBuckets(added));
+        assertEquals(sorted, List.copyOf(buckets));
+    }
+
+    @Test
+    void startsEmpty() {
+        ReviewBuckets buckets = new ReviewBuckets();
+        assertTrue(buckets.isEmpty());
+        assertEquals(0, buckets.toArray().length);
+        assertThrows(IndexOutOfBoundsException.class, () -> buckets.get(0));
+
+        buckets.add(new Review(Rating.NOT_RATED, "none"));
+        assertEquals(1, buckets.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> buckets.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> buckets.get(-1));
+    }
+
+    @Test
+    void canOnlyBeAddedTo() {
+        ReviewBuckets buckets = new ReviewBuckets(reviews(10, 14));
+        assertThrows(UnsupportedOperationException.class, () -> buckets.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> buckets.set(0, new Review(Rating.ONE_STAR, "")));
+        assertThrows(UnsupportedOperationException.class, () -> buckets.add(0, new Review(Rating.ONE_STAR, "")));
+
+        Iterator<Review> iterator = buckets.iterator();
+        iterator.next();
+        buckets.add(new Review(Rating.FIVE_STAR, "late"));
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
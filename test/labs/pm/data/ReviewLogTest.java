@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewLogTest {
+
+    @TempDir
+    Path folder;
+
+    private Path file() {
+        return folder.resolve("reviews.log");
+    }
+
+    private static List<ProductReview> replay(ReviewLog log, int snapshotGeneration) throws IOException {
+        List<ProductReview> replayed = new ArrayList<>();
+        log.replay(snapshotGeneration, (id, rating, comments) -> replayed.add(new ProductReview(id, rating, comments)));
+        return replayed;
+    }
+
+    @Test
+    void replaysWhatWasAppended() throws IOException {
+        List<ProductReview> reviews = List.of(
+                new ProductReview(101, Rating.FOUR_STAR, "Nice hot cup of tea"),
+                new ProductReview(102, Rating.ONE_STAR, null),
+                new ProductReview(103, Rating.NOT_RATED, ""),
+                new ProductReview(101, Rating.FIVE_STAR, "très bon, 很好"));
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            ProductReview first = reviews.get(0);
+            log.sync(log.append(first.productId(), first.rating(), first.comments()));
+            log.sync(log.append(reviews.subList(1, reviews.size())));
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(reviews, replay(log, 0));
+        }
+    }
+
+    @Test
+    void dropsTornRecordAtTheEnd() throws IOException {
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            log.append(1, Rating.TWO_STAR, "kept");
+            log.append(2, Rating.THREE_STAR, "torn");
+        }
+        long size = Files.size(file());
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(List.of(new ProductReview(1, Rating.TWO_STAR, "kept")), replay(log, 0));
+            log.append(3, Rating.FOUR_STAR, "after");
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(List.of(new ProductReview(1, Rating.TWO_STAR, "kept"),
+                    new ProductReview(3, Rating.FOUR_STAR, "after")), replay(log, 0));
+        }
+    }
+
+    @Test
+    void dropsCorruptRecord() throws IOException {
+        long end;
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            log.append(1, Rating.TWO_STAR, "kept");
+            end = log.size();
+            log.append(2, Rating.THREE_STAR, "corrupt");
+        }
+        byte[] bytes = Files.readAllBytes(file());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file(), bytes);
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(end, log.size());
+            assertEquals(1, replay(log, 0).size());
+        }
+    }
+
+    @Test
+    void newLogContinuesTheGivenGeneration() throws IOException {
+        try (ReviewLog log = new ReviewLog(file(), 7, false)) {
+            assertEquals(7, log.getGeneration());
+        }
+        // the header on disk wins over the generation of an existing log
+        try (ReviewLog log = new ReviewLog(file(), 3, false)) {
+            assertEquals(7, log.getGeneration());
+        }
+        // a reset that did not get to write its header
+        Files.write(file(), new byte[5]);
+        try (ReviewLog log = new ReviewLog(file(), 9, false)) {
+            assertEquals(9, log.getGeneration());
+        }
+    }
+
+    @Test
+    void replaysOnlyGenerationsNotInTheSnapshot() throws IOException {
+        try (ReviewLog log = new ReviewLog(file(), 4, false)) {
+            log.append(1, Rating.ONE_STAR, "a");
+        }
+        try (ReviewLog log = new ReviewLog(file(), 4, false)) {
+            assertEquals(1, replay(log, 4).size());
+        }
+        // a newer log than the snapshot, the snapshot it continued is gone
+        try (ReviewLog log = new ReviewLog(file(), 4, false)) {
+            assertEquals(1, replay(log, 2).size());
+        }
+        // without a snapshot everything is replayed on the data folder
+        try (ReviewLog log = new ReviewLog(file(), 4, false)) {
+            assertEquals(1, replay(log, ReviewLog.NO_SNAPSHOT).size());
+        }
+        // an older log is already in the snapshot, it is reset to the snapshot generation
+        try (ReviewLog log = new ReviewLog(file(), 4, false)) {
+            assertEquals(0, replay(log, 5).size());
+            assertEquals(5, log.getGeneration());
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(5, log.getGeneration());
+            assertEquals(0, replay(log, 5).size());
+        }
+    }
+
+    @Test
+    void resetRefusesReviewsThatWereNeverReplayed() throws IOException {
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            log.append(1, Rating.ONE_STAR, "a");
+            // appended in this run, so already applied
+            log.reset(1);
+            log.append(2, Rating.TWO_STAR, "b");
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertThrows(IOException.class, log::checkReplayed);
+            assertThrows(IOException.class, () -> log.reset(2));
+            assertEquals(1, replay(log, 1).size());
+            log.reset(2);
+        }
+        try (ReviewLog log = new ReviewLog(file(), 0, false)) {
+            assertEquals(2, log.getGeneration());
+            assertDoesNotThrow(log::checkReplayed);
+            assertEquals(0, replay(log, 2).size());
+        }
+    }
+
+    @Test
+    void unknownProductsAreNotReviewed() {
+        ProductManager productManager = ProductManagers.get();
+        int id = ProductManagers.ids(1);
+        // a product that was never created, a review of it would be replayed at every restore
+        Product unknown = new Drink(id, "Unknown", BigDecimal.ONE, Rating.NOT_RATED);
+        assertNull(productManager.reviewProduct(unknown, Rating.FIVE_STAR, "never logged"));
+        assertNull(productManager.reviewProduct(id, Rating.FIVE_STAR, "never logged"));
+        assertThrows(ProductManagerException.class, () -> productManager.findProduct(id));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class ReviewStatsTest {
+
+    /**
+     * the average as reviewProduct computed it before the aggregates, over every review
+     */
+    private static Rating average(List<Review> reviews) {
+        return Reteable.convert((int) Math.round(reviews.stream()
+                .mapToInt(review -> review.getRating().ordinal()).average().orElse(0)));
+    }
+
+    @Test
+    void aggregatesLikeTheReviews() {
+        Random random = new Random(2);
+        Rating[] ratings = Rating.values();
+        List<Review> reviews = new ArrayList<>();
+        ReviewStats stats = new ReviewStats();
+        for (int i = 0; i < 5000; i++) {
+            // mostly three and four stars, so the average keeps crossing 3.5
+            int ordinal = i % 7 == 0 ? random.nextInt(ratings.length) : 3 + random.nextInt(2);
+            Review review = new Review(ratings[ordinal], "review " + i);
+            reviews.add(review);
+            stats.add(review.getRating());
+
+            assertEquals(reviews.size(), stats.getCount());
+            assertEquals(average(reviews), stats.getAverage(), "after " + reviews.size() + " reviews");
+        }
+        assertEquals(reviews.stream().mapToLong(review -> review.getRating().ordinal()).sum(), stats.getSum());
+        for (Rating rating : ratings) {
+            assertEquals(reviews.stream().filter(review -> review.getRating() == rating).count(),
+                    stats.getCount(rating), rating.toString());
+        }
+
+        ReviewStats rebuilt = ReviewStats.of(reviews);
+        assertEquals(stats.getCount(), rebuilt.getCount());
+        assertEquals(stats.getSum(), rebuilt.getSum());
+        assertEquals(stats.getAverage(), rebuilt.getAverage());
+    }
+
+    @Test
+    void roundsToTheClosestStar() {
+        assertEquals(Rating.NOT_RATED, new ReviewStats().getAverage());
+        assertEquals(Rating.NOT_RATED, ReviewStats.of(List.of()).getAverage());
+
+        ReviewStats stats = ReviewStats.of(List.of(new Review(Rating.FOUR_STAR, "good"),
+                new Review(Rating.FIVE_STAR, "great")));
+        // 4.5 rounds up
+        assertEquals(Rating.FIVE_STAR, stats.getAverage());
+        stats.add(Rating.ONE_STAR);
+        assertEquals(Rating.THREE_STAR, stats.getAverage());
+        stats.add(Rating.NOT_RATED);
+        assertEquals(Rating.THREE_STAR, stats.getAverage());
+        assertEquals(4, stats.getCount());
+        assertEquals(10, stats.getSum());
+        assertEquals(1, stats.getCount(Rating.NOT_RATED));
+        assertEquals(0, stats.getCount(Rating.TWO_STAR));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class SnapshotFileTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        Map<Product, List<Review>> catalog = Catalogs.random(500, 20, 1);
+        // a plain product and a price with trailing zeros, which the data files never give
+        catalog.put(new Product(501, "Plain", new BigDecimal("12.300"), Rating.TWO_STAR),
+                List.of(new Review(Rating.ONE_STAR, "Plain review")));
+        Path file = folder.resolve("catalog.temp");
+        SnapshotFile.write(file, catalog, 42);
+
+        assertEquals(42, SnapshotFile.logGeneration(file));
+        assertEquals(Catalogs.describe(catalog), Catalogs.describe(SnapshotFile.read(file, false)));
+        assertEquals(Catalogs.describe(catalog), Catalogs.describe(SnapshotFile.read(file, true)));
+    }
+
+    @Test
+    void copiesMappedReviewsAsTheyAre() throws IOException {
+        Map<Product, List<Review>> catalog = Catalogs.random(200, 10, 2);
+        Path first = folder.resolve("first.temp");
+        SnapshotFile.write(first, catalog, 1);
+
+        // lists that were never read are copied encoded, the others are encoded again
+        Map<Product, List<Review>> mapped = SnapshotFile.read(first, true);
+        mapped.entrySet().stream().filter(entry -> entry.getKey().getId() % 5 == 0 && !entry.getValue().isEmpty())
+                .forEach(entry -> entry.getValue().get(0));
+        Path second = folder.resolve("second.temp");
+        SnapshotFile.write(second, mapped, 2);
+
+        assertEquals(Catalogs.describe(catalog), Catalogs.describe(SnapshotFile.read(second, false)));
+    }
+
+    @Test
+    void keepsEmptyCatalog() throws IOException {
+        Path file = folder.resolve("empty.temp");
+        SnapshotFile.write(file, Map.of(), 0);
+        assertTrue(SnapshotFile.read(file, false).isEmpty());
+        assertTrue(SnapshotFile.read(file, true).isEmpty());
+    }
+
+    @Test
+    void removesPartialFileWhenWriteFails() throws IOException {
+        Map<Product, List<Review>> catalog = new HashMap<>(Catalogs.random(10, 5, 3));
+        catalog.put(new Product(1000, "Broken", BigDecimal.ONE, Rating.NOT_RATED), new AbstractList<>() {
+            @Override
+            public Review get(int index) {
+                throw new IllegalStateException("broken list");
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        });
+        Path file = folder.resolve("broken.temp");
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.write(file, catalog, 0));
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(List.of(), files.toList());
+        }
+    }
+
+    @Test
+    void readsSerializedSnapshotsOfEarlierVersions() throws IOException {
+        List<Path> legacy;
+        try (Stream<Path> files = Files.list(Path.of("temp"))) {
+            legacy = files.filter(file -> file.getFileName().toString().endsWith(".temp")).sorted().toList();
+        }
+        assertFalse(legacy.isEmpty());
+        for (Path file : legacy) {
+            Map<Product, List<Review>> restored = SnapshotFile.read(file, false);
+            assertFalse(restored.isEmpty(), file.toString());
+            assertEquals(0, SnapshotFile.logGeneration(file));
+            assertEquals(Catalogs.describe(restored), Catalogs.describe(SnapshotFile.read(file, true)));
+
+            // and they are written again in the binary format
+            Path binary = folder.resolve(file.getFileName());
+            SnapshotFile.write(binary, restored, 1);
+            assertEquals(Catalogs.describe(restored), Catalogs.describe(SnapshotFile.read(binary, true)));
+        }
+    }
+}
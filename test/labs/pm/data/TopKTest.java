@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024. Lorem ipsum dolor sit amet, consectetur adipiscing elit.
+ * Morbi non lorem porttitor neque feugiat blandit. Ut vitae ipsum eget quam lacinia accumsan.
+ * Etiam sed turpis ac ipsum condimentum fringilla. Maecenas magna.
+ * Proin dapibus sapien vel ante. Aliquam erat volutpat. Pellentesque sagittis ligula eget metus.
+ * Vestibulum commodo. Ut rhoncus gravida arcu.
+ */
+
+
+package labs.pm.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @version 4.0
+ * @author amz
+ **/
+class TopKTest {
+
+    private static List<Integer> random(int size, int bound, long seed) {
+        Random random = new Random(seed);
+        return IntStream.range(0, size).map(i -> random.nextInt(bound)).boxed().toList();
+    }
+
+    @Test
+    void keepsFirstElementsOfSortedStream() {
+        Comparator<Integer> order = Comparator.naturalOrder();
+        for (int size : new int[]{0, 1, 10, 1000, 100_000}) {
+            // a small bound gives many equal elements
+            List<Integer> elements = random(size, 500, size);
+            for (int k : new int[]{0, 1, 7, 64, 65, 1000, 200_000}) {
+                List<Integer> expected = elements.stream().sorted(order).limit(k).toList();
+                assertEquals(expected, elements.stream().collect(TopK.collector(order, k)), size + " " + k);
+                assertEquals(expected, elements.parallelStream().collect(TopK.collector(order, k)), size + " " + k);
+            }
+        }
+    }
+
+    @Test
+    void followsTheGivenOrder() {
+        List<Integer> elements = random(10_000, Integer.MAX_VALUE, 3);
+        Comparator<Integer> order = Comparator.<Integer>reverseOrder();
+        assertEquals(elements.stream().sorted(order).limit(100).toList(),
+                elements.parallelStream().collect(TopK.collector(order, 100)));
+    }
+
+    @Test
+    void rejectsNegativeK() {
+        assertThrows(IllegalArgumentException.class, () -> TopK.collector(Comparator.<Integer>naturalOrder(), -1)
+                .supplier().get());
+    }
+}